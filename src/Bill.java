@@ -1,55 +1,183 @@
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 /**
  * The Bill class represents a Bill that stores a list of Orders. This class will also have the total value of the bill
  * and allow the Server to add and remove Orders from this Bill. Each Bill represents one table and thus have a unique
  * id.
+ *
+ * The Bill keeps a ledger of the lines that are still unpaid, by line id, along with running totals. The ledger is
+ * updated as Orders arrive and as lines are paid or voided, so the totals never have to be added up again and listing
+ * the unpaid lines only touches those lines.
  */
 
 public class  Bill {
     // The unique identifier of this Bill.
-    private int id;
-    // This is the counter that will ensure that we have unique ids.
-    private static int nextId = 0;
+    private long id;
+    // This is the allocator that will ensure that we have unique ids, even across restarts.
+    final private static IdAllocator ids = IdAllocator.forType("Bill");
     // Number of the table this Bill refers to.
     private int tableNum;
     // The list of orders that the Bill contains.
     private ArrayList<Order> orders;
-    // The total cost of all the orders together.
+    // The total cost of all the orders together, not counting voided lines.
     private int cost;
+    // The lines that have not been paid or voided yet, by line id, in the order they were added.
+    private LinkedHashMap<Long, OrderLine> unpaid = new LinkedHashMap<>();
+    // Map from line id to the Order the line is on, for unpaid lines.
+    private HashMap<Long, Order> lineOrders = new HashMap<>();
+    // Map from Order id to the number of its lines that are still unpaid.
+    private HashMap<Long, Integer> unpaidPerOrder = new HashMap<>();
+    // The running totals of the unpaid and paid lines.
+    private int unpaidTotal;
+    private int paidTotal;
+    // The OrderBook that Orders are marked as paid, or as returned if every line was voided, in once all of their
+    // lines are settled, or null.
+    private OrderBook orderBook;
 
     /**
      * Constructor that initializes a Bill with a table number.
      * @param tableNum This Bill's table number.
      */
     public Bill(int tableNum){
-        this.id = nextId++;
+        this(tableNum, null);
+    }
+
+    /**
+     * Constructor that initializes a Bill with a table number, which marks its Orders as paid in the specified
+     * OrderBook once every line on them has been paid or voided, or as returned if every line was voided.
+     * @param tableNum This Bill's table number.
+     * @param orderBook The Restaurant's OrderBook, or null.
+     */
+    public Bill(int tableNum, OrderBook orderBook){
+        this.id = ids.nextId();
         this.tableNum = tableNum;
         this.orders = new ArrayList<>();
+        this.orderBook = orderBook;
+    }
+
+    /**
+     * Clears this Bill so it can be reused for another table. The Bill gets a new id.
+     * @param tableNum The table number of the new table.
+     */
+    synchronized void reopen(int tableNum){
+        this.id = ids.nextId();
+        this.tableNum = tableNum;
+        this.orders.clear();
+        this.cost = 0;
+        this.unpaid.clear();
+        this.lineOrders.clear();
+        this.unpaidPerOrder.clear();
+        this.unpaidTotal = 0;
+        this.paidTotal = 0;
+    }
+
+    /**
+     * Sets the totals of a Bill that was saved, after its Orders have been added back to it.
+     * @param cost The cost of the Bill, without the lines that were voided.
+     * @param paidTotal The amount that had been paid.
+     */
+    synchronized void restoreTotals(int cost, int paidTotal){
+        this.cost = cost;
+        this.paidTotal = paidTotal;
     }
 
     /**
      * Adds a new order to this Bill.
      * @param order Order to be added.
      */
-    public void addToBill(Order order){
+    public synchronized void addToBill(Order order){
         this.orders.add(order);
         this.cost += order.getCost();
+        int lines = 0;
+        for (OrderLine line : order.getItems()) {
+            if (!line.isSettled()) {
+                unpaid.put(line.getId(), line);
+                lineOrders.put(line.getId(), order);
+                unpaidTotal += line.getCost();
+                lines++;
+            }
+        }
+        if (lines > 0) {
+            unpaidPerOrder.put(order.getId(), lines);
+        }
+    }
+
+    /**
+     * Marks an unpaid line as paid.
+     * @param lineId The id of the line.
+     * @return True if the line was paid, false if it is not an unpaid line on this Bill.
+     */
+    public synchronized boolean pay(long lineId){
+        OrderLine line = settle(lineId, false);
+        if (line == null) {
+            return false;
+        }
+        paidTotal += line.getCost();
+        return true;
+    }
+
+    /**
+     * Voids an unpaid line, for example because it was sent back. The line no longer counts towards the Bill.
+     * @param lineId The id of the line.
+     * @return True if the line was voided, false if it is not an unpaid line on this Bill.
+     */
+    public synchronized boolean voidLine(long lineId){
+        OrderLine line = settle(lineId, true);
+        if (line == null) {
+            return false;
+        }
+        cost -= line.getCost();
+        return true;
+    }
+
+    /**
+     * Takes a line out of the unpaid lines and marks it as paid or voided. Once none of its Order's lines are left,
+     * the Order is marked as returned if every line on it was voided, or as paid otherwise.
+     * @param lineId The id of the line.
+     * @param voided True if the line is being voided, false if it is being paid for.
+     * @return The line, or null if it is not an unpaid line on this Bill.
+     */
+    private OrderLine settle(long lineId, boolean voided){
+        OrderLine line = unpaid.remove(lineId);
+        if (line == null) {
+            return null;
+        }
+        if (voided) {
+            line.setVoided();
+        } else {
+            line.setPayed(true);
+        }
+        unpaidTotal -= line.getCost();
+        Order order = lineOrders.remove(lineId);
+        int left = unpaidPerOrder.get(order.getId()) - 1;
+        if (left > 0) {
+            unpaidPerOrder.put(order.getId(), left);
+        } else {
+            unpaidPerOrder.remove(order.getId());
+            if (orderBook != null && order.isVoided()) {
+                orderBook.returnOrder(order.getId());
+            } else if (orderBook != null) {
+                orderBook.pay(order.getId());
+            }
+        }
+        return line;
     }
 
     /**
      * Getter for the Orders contained in this Bill.
      * @return ArrayList of Orders.
      */
-    public ArrayList<Order> getOrders(){
-        return this.orders;
+    public synchronized ArrayList<Order> getOrders(){
+        return new ArrayList<>(this.orders);
     }
 
     /**
      * Getter for the table number.
      * @return The table number.
      */
-    public int getTableNum(){
+    public synchronized int getTableNum(){
         return this.tableNum;
     }
 
@@ -57,7 +185,7 @@ public class  Bill {
      * Getter for the Id of the Bill.
      * @return Id of the Bill.
      */
-    public int getId(){
+    public synchronized long getId(){
         return this.id;
     }
 
@@ -65,32 +193,52 @@ public class  Bill {
      * Getter for the cost of the Bill.
      * @return Cost of the Bill.
      */
-    public int getCost(){
+    public synchronized int getCost(){
         return this.cost;
     }
 
     /**
-     * Getter for the names and price in String form of the MenuItems contained in this Bill.
+     * Returns the total cost of the lines that are still unpaid.
+     * @return The unpaid total.
+     */
+    public synchronized int getUnpaidTotal(){
+        return this.unpaidTotal;
+    }
+
+    /**
+     * Returns the total cost of the lines that have been paid.
+     * @return The paid total.
+     */
+    public synchronized int getPaidTotal(){
+        return this.paidTotal;
+    }
+
+    /**
+     * Returns the number of lines that are still unpaid.
+     * @return The number of lines.
+     */
+    public synchronized int getUnpaidCount(){
+        return this.unpaid.size();
+    }
+
+    /**
+     * Getter for the names and price in String form of the MenuItems that are still unpaid on this Bill.
      * @return ArrayList of Strings with name and price of MenuItems.
      */
-    public ArrayList<String> getItemsNames(){
+    public synchronized ArrayList<String> getItemsNames(){
         ArrayList<String> items = new ArrayList<>();
-        for(Order order: orders){
-            items.addAll(order.getItemsNames());
+        for(OrderLine line: unpaid.values()){
+            items.add("Item: " + line.getName() + ". Cost: " + line.getCost() + " CAD");
         }
         return items;
     }
 
     /**
-     * Getter for the MenuItems contained in this Bill.
-     * @return ArrayList of MenuItems contained here.
+     * Getter for the lines that are still unpaid on this Bill, in the order they were added.
+     * @return ArrayList of OrderLines contained here.
      */
-    public ArrayList<MenuItem> getItems(){
-        ArrayList<MenuItem> items = new ArrayList<>();
-        for(Order order: orders){
-            items.addAll(order.getUnpaidItems());
-        }
-        return items;
+    public synchronized ArrayList<OrderLine> getItems(){
+        return new ArrayList<>(unpaid.values());
     }
 
     /**
@@ -98,7 +246,7 @@ public class  Bill {
      * @return String as a visual representation of the Bill.
      */
     @Override
-    public String toString(){
+    public synchronized String toString(){
         String ret= "Bill id: " + this.id + " ----- Table number: " + this.tableNum + "\n";
         System.out.println("Bill " +  this.id + " has " + orders.size());
         for(Order it : orders){
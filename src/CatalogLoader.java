@@ -0,0 +1,136 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads catalog files such as 'ingredients.txt' and 'menu.txt', where each line describes one item.
+ *
+ * The file is read as a stream of chunks of CHUNK_LINES lines. Each chunk is parsed on the common fork/join pool while
+ * the next ones are being read, so parsing uses every core, and at most a few chunks per core are held in memory at
+ * once. Items are returned in the order they appear in the file. A line that can not be parsed is skipped, and reported
+ * along with its line number.
+ */
+public class CatalogLoader {
+
+    // The number of lines parsed together as one task.
+    final private static int CHUNK_LINES = 1024;
+    // The number of chunks that may be waiting to be parsed per core, before reading waits for parsing to catch up.
+    final private static int CHUNKS_PER_CORE = 4;
+
+    /**
+     * Parses one line of a catalog into an item.
+     * @param <T> The type of item.
+     */
+    public interface LineParser<T> {
+        /**
+         * Parses a line.
+         * @param line The line, with surrounding whitespace removed. Never empty.
+         * @return The item.
+         * @throws IllegalArgumentException If the line is not valid. The message says what is wrong with it.
+         */
+        T parse(String line);
+    }
+
+    /**
+     * The items parsed from one chunk, and the errors found in it.
+     */
+    private static class ParsedChunk<T> {
+        private ArrayList<T> items = new ArrayList<>();
+        private ArrayList<String> errors = new ArrayList<>();
+    }
+
+    /**
+     * Loads every item in a catalog file. Bad lines are skipped and printed with their line numbers.
+     * @param file The catalog file.
+     * @param parser Parses each line into an item. Called from several threads at once.
+     * @param <T> The type of item.
+     * @return The items, in file order.
+     * @throws IOException If the file can not be read.
+     */
+    public static <T> List<T> load(File file, LineParser<T> parser) throws IOException {
+        ArrayList<T> items = new ArrayList<>();
+        ArrayDeque<CompletableFuture<ParsedChunk<T>>> pending = new ArrayDeque<>();
+        int maxPending = Runtime.getRuntime().availableProcessors() * CHUNKS_PER_CORE;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            int lineNumber = 0;
+            String line = reader.readLine();
+            while (line != null) {
+                final int firstLine = lineNumber + 1;
+                final ArrayList<String> chunk = new ArrayList<>(CHUNK_LINES);
+                while (line != null && chunk.size() < CHUNK_LINES) {
+                    chunk.add(line);
+                    lineNumber++;
+                    line = reader.readLine();
+                }
+                pending.add(CompletableFuture.supplyAsync(() -> parseChunk(file, chunk, firstLine, parser)));
+                if (pending.size() >= maxPending) {
+                    collect(pending.poll().join(), items);
+                }
+            }
+        }
+        while (!pending.isEmpty()) {
+            collect(pending.poll().join(), items);
+        }
+        return items;
+    }
+
+    private static <T> ParsedChunk<T> parseChunk(File file, List<String> lines, int firstLine, LineParser<T> parser) {
+        ParsedChunk<T> parsed = new ParsedChunk<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                parsed.items.add(parser.parse(line));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                parsed.errors.add(file.getName() + ":" + (firstLine + i) + ": " + e.getMessage());
+            }
+        }
+        return parsed;
+    }
+
+    private static <T> void collect(ParsedChunk<T> chunk, List<T> items) {
+        items.addAll(chunk.items);
+        for (String error : chunk.errors) {
+            System.out.println(error);
+        }
+    }
+
+    /**
+     * Splits a field of the form "name amount" at the last separator, so that the name may itself contain the
+     * separator, as in "Grilled Cheese 8".
+     * @param field The field.
+     * @param separator The character between the name and the amount.
+     * @return The name and the amount.
+     * @throws IllegalArgumentException If there is no name or no amount.
+     */
+    public static String[] splitLast(String field, char separator) {
+        int split = field.lastIndexOf(separator);
+        if (split <= 0) {
+            throw new IllegalArgumentException("expected a name and a number in \"" + field + "\"");
+        }
+        return new String[] {field.substring(0, split).trim(), field.substring(split + 1).trim()};
+    }
+
+    /**
+     * Parses a whole number field.
+     * @param field The field.
+     * @param what What the number is, for the error message.
+     * @return The number.
+     * @throws IllegalArgumentException If the field is not a whole number.
+     */
+    public static int parseNumber(String field, String what) {
+        try {
+            return Integer.parseInt(field.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(what + " \"" + field.trim() + "\" is not a whole number");
+        }
+    }
+}
@@ -1,5 +1,4 @@
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -7,46 +6,49 @@ import java.util.Map;
  */
 public class Chef extends Employee implements Receiver{
     private ArrayList<Order> ordersSeen = new ArrayList<>();
-    private ArrayList<Order> ordersWaiting = new ArrayList<>();
-    private ArrayList<Order> ordersReady = new ArrayList<>();
+    // Decides which Orders this Chef works on.
+    private KitchenScheduler kitchen;
 
     /**
      * Constructor for the Chef class. Create a new Chef with specified name.
+     * @param id The id of the Chef, which stays the same across restarts.
      * @param name The name.
+     * @param kitchen The Restaurant's KitchenScheduler.
      */
-    public Chef(String name, Menu ourMenu, Inventory inventory) {
-        super(name, ourMenu, inventory);
+    public Chef(long id, String name, Menu ourMenu, Inventory inventory, OrderBook orderBook,
+                KitchenScheduler kitchen) {
+        super(id, name, ourMenu, inventory, orderBook);
+        this.kitchen = kitchen;
+        kitchen.addChef(name);
     }
 
-    private void orderEvent(Event event) {
-        ordersWaiting.add(event.getOrder());
+    /**
+     * Subscribes this Chef to new orders and to orders being claimed.
+     * @param router The EventRouter.
+     */
+    @Override
+    public void subscribe(EventRouter router) {
+        router.subscribe(EventType.ORDER, this);
+        router.subscribe(EventType.REMOVE_ORDER, this);
     }
 
+    /**
+     * Orders waiting for a Chef are kept in the OrderBook, so this only tells the Chef's screen that an order has
+     * arrived or been claimed, so it can show the new list.
+     * @param event The Event.
+     */
     public void handleEvent(Event event){
-        if (event.getEventType().equals(EventType.ORDER)){
-            orderEvent(event);
-        }
-        if (event.getEventType().equals(EventType.REMOVE_ORDER)){
-            for (int i = 0; i < ordersWaiting.size(); i++) {
-                if ((ordersWaiting.get(i).getId() == event.getOrder().getId())&& !(event.getExp().equals(getName()))) {
-                    ordersWaiting.remove(i);
-                    break;
-                }
-            }
-        }
+        updateDisplay(event);
     }
 
     /**
      * Restocks the given set of ingredients and their quantities to the inventory.
      * @param map Map of the ingredients to be restocked in <String, Integer> form,
      *           where the String key value is the name of the ingredient.
+     * @return The result of restocking each ingredient.
      */
-    public void addToInventory(Map<String, Integer> map){
-        for(Map.Entry<String, Integer> entry : map.entrySet()){
-            String ingredientName = entry.getKey();
-            Integer quantity = entry.getValue();
-            inventory.addIngredient(ingredientName, quantity);
-        }
+    public Map<String, DeliveryResult> addToInventory(Map<String, Integer> map){
+        return inventory.receiveDelivery(map);
     }
 
     /**
@@ -57,44 +59,66 @@ public class Chef extends Employee implements Receiver{
         ordersSeen.add(order);
     }
 
+    /**
+     * Claims an order for this Chef, so no other Chef makes it. The claim takes effect straight away, and the other
+     * employees are then told about it.
+     * @param order The order to claim.
+     * @return True if this Chef now has the order, false if it had already been claimed.
+     */
+    public boolean claimOrder(Order order){
+        if (!orderBook.claim(order.getId(), getName())) {
+            return false;
+        }
+        kitchen.claim(order.getId());
+        Event e = Event.claim(EventType.REMOVE_ORDER);
+        e.addOrder(order);
+        e.setExp(getName());
+        e.setChef(getId(), getName());
+        sendEvent(e);
+        return true;
+    }
+
     /**
      * Whenever the Chef completes an order, this is called.
      * @param order The order that is ready.
      */
     public void orderReady(Order order){
-        Event e = new Event(EventType.ORDER_READY);
+        Event e = Event.claim(EventType.ORDER_READY);
         e.addOrder(order);
-        e.setServer(order.getServerName());
+        e.setServer(order.getServerId(), order.getServerName());
+        e.setChef(getId(), getName());
+        e.setRecipient(order.getServerId());
         sendEvent(e);
-
-        Event b = new Event(EventType.REMOVE_ORDER);
-        b.addOrder(order);
-        b.setExp("");
-        sendEvent(b);
     }
 
-
     /**
-     * Whenever a finished order is brought out of the kitchen, this is called.
-     * @param order The order that has been taken.
+     * Returns the orders that this Chef could work on: those queued for this Chef, in the order they should be made,
+     * followed by those that this Chef has claimed.
+     * @return The orders.
      */
-    public void orderDelivered(Order order){
-        ordersReady.remove(order);
-    }
-
     public ArrayList<Order> getOrdersWaiting() {
-        return ordersWaiting;
+        ArrayList<Order> waiting = kitchen.getQueue(getName());
+        waiting.addAll(orderBook.getOrders(OrderState.CLAIMED, getName()));
+        return waiting;
     }
 
+    /**
+     * Returns the orders that this Chef has prepared and that are waiting to be served.
+     * @return The orders.
+     */
     public ArrayList<Order> getOrdersReady() {
-        return ordersReady;
+        return orderBook.getOrders(OrderState.READY, getName());
     }
 
-    public Order getOrderWaiting(int id){
-        for (Order i : ordersWaiting){
-            if (i.getId() == id){
-                return i;
-            }
+    /**
+     * Returns the specified order if this Chef could work on it.
+     * @param id The id of the order.
+     * @return The order, or null if it is not waiting for this Chef.
+     */
+    public Order getOrderWaiting(long id){
+        if (kitchen.isQueuedFor(id, getName())
+                || (orderBook.getState(id) == OrderState.CLAIMED && getName().equals(orderBook.getChef(id)))) {
+            return orderBook.getOrder(id);
         }
         return null;
     }
@@ -1,3 +1,4 @@
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
@@ -54,20 +55,21 @@ public class ChefController {
             String str = ordersList.getSelectionModel().getSelectedItem();
             String [] lis = str.split(" ");
             lis = lis[2].split(",");
-            int num = Integer.parseInt(lis[0]);
+            long num = Long.parseLong(lis[0]);
             String titleStr = "Order #" + num;
             Order order = currChef.getOrderWaiting(num);
 
             String info = "";
 
-            for (MenuItem mu : order.getUnpaidItems()){
+            for (OrderLine mu : order.getUnpaidItems()){
                 info += mu.getName();
                 info += " => ";
                 HashMap ings = new HashMap<String, Integer>();
 
 
-                for (Ingredient ing : mu.getIngredients().keySet()){
-                    ings.put(ing.getName(), mu.getIngredients().get(ing));
+                for (int i = 0; i < mu.getIngredientIds().length; i++){
+                    ings.put(currChef.getInventory().getIngredient(mu.getIngredientIds()[i]).getName(),
+                            mu.getQuantities()[i]);
                 }
 
                 info += ings;
@@ -85,11 +87,12 @@ public class ChefController {
             String str = ordersList.getSelectionModel().getSelectedItem();
             String [] lis = str.split(" ");
             lis = lis[2].split(",");
-            int num = Integer.parseInt(lis[0]);
-            Event e = new Event(EventType.REMOVE_ORDER);
-            e.addOrder(currChef.getOrderWaiting(num));
-            e.setExp(currChef.getName());
-            currChef.sendEvent(e);
+            long num = Long.parseLong(lis[0]);
+            Order order = currChef.getOrderWaiting(num);
+            if (order == null || !currChef.claimOrder(order)) {
+                Alert alert = new Alert(Alert.AlertType.INFORMATION, "This order has already been claimed.");
+                alert.show();
+            }
             viewNewOrders();
         }
 
@@ -98,9 +101,11 @@ public class ChefController {
             String str = ordersList.getSelectionModel().getSelectedItem();
             String[] lis = str.split(" ");
             lis = lis[2].split(",");
-            int num = Integer.parseInt(lis[0]);
+            long num = Long.parseLong(lis[0]);
             currChef.orderReady(currChef.getOrderWaiting(num));
-            viewNewOrders();
+            // The order only leaves the kitchen's lists once the event has been handled, so take it off the screen
+            // here.
+            ordersList.getItems().remove(ordersList.getSelectionModel().getSelectedIndex());
             itemSelect();
         }
         catch(Exception e){
@@ -110,7 +115,12 @@ public class ChefController {
 
         public void setCurrChef() {
             String chefName = ((ComboBox) employeeComboBox).getSelectionModel().getSelectedItem().toString();
+            if (currChef != null) {
+                currChef.setDisplay(null);
+            }
             currChef = employees.get(chefName);
+            // Show new and claimed orders as they happen. The list is rebuilt on the JavaFX thread.
+            currChef.setDisplay(event -> Platform.runLater(this::viewNewOrders));
             viewNewOrdersButton.disableProperty().setValue(false);
             viewNewOrders();
             itemSelect();
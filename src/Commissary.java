@@ -0,0 +1,95 @@
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A central kitchen that stocks Ingredients for several branch Restaurants. It has its own Inventory, which branches
+ * fall back on when they run short, and it moves stock between Inventories.
+ *
+ * Every branch keeps its own Inventory, so branches never wait on each other while taking Orders. They only share the
+ * Commissary's locks when one of them actually runs short.
+ */
+public class Commissary {
+
+    private Inventory inventory;
+
+    /**
+     * Creates a Commissary, recovering its Inventory from the specified directory.
+     * @param directory The directory that the Commissary's Inventory is kept in.
+     */
+    public Commissary(File directory) {
+        this.inventory = Inventory.recover(directory);
+    }
+
+    /**
+     * Returns the Commissary's own Inventory.
+     * @return The Inventory.
+     */
+    public Inventory getInventory() {
+        return this.inventory;
+    }
+
+    /**
+     * Sends the specified amounts of Ingredients from the Commissary to a branch.
+     * @param branch The Inventory of the branch.
+     * @param amounts Map from the name of each Ingredient to the amount to send.
+     * @return True if everything was sent, false if nothing was sent.
+     */
+    public boolean supply(Inventory branch, Map<String, Integer> amounts) {
+        return transfer(this.inventory, branch, amounts);
+    }
+
+    /**
+     * Moves the specified amounts of Ingredients from one Inventory to another, such as between two branches. While
+     * the program runs, either every amount is moved or none is: if the destination does not take every line, the
+     * lines it did take are taken back out and everything is returned to the source. The one exception is a line the
+     * destination has already used up by then, which cannot be taken back and is reported instead.
+     *
+     * The amounts are reserved in the source and then received by the destination, each recorded in its own journal.
+     * If the program stops between the two, the amounts will be missing from both.
+     * @param from The Inventory to take the Ingredients from.
+     * @param to The Inventory to add the Ingredients to.
+     * @param amounts Map from the name of each Ingredient to the amount to move.
+     * @return True if everything was moved, false if an Ingredient is missing from either Inventory or there is not
+     *         enough of it in the source.
+     */
+    public static boolean transfer(Inventory from, Inventory to, Map<String, Integer> amounts) {
+        for (Map.Entry<String, Integer> entry : amounts.entrySet()) {
+            if (to.getIngredient(entry.getKey()) == null || entry.getValue() == null || entry.getValue() <= 0) {
+                return false;
+            }
+        }
+        if (!from.reserve(amounts)) {
+            return false;
+        }
+        Map<String, DeliveryResult> results = to.receiveDelivery(amounts);
+        Map<String, Integer> added = new LinkedHashMap<>();
+        Map<String, Integer> returned = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : amounts.entrySet()) {
+            if (results.get(entry.getKey()) == DeliveryResult.ADDED) {
+                added.put(entry.getKey(), entry.getValue());
+            } else {
+                returned.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (returned.isEmpty()) {
+            return true;
+        }
+        // Only lines the destination has not used yet can be taken back out of it.
+        if (!added.isEmpty() && to.reserve(added)) {
+            returned.putAll(added);
+        } else if (!added.isEmpty()) {
+            System.out.println("Could not take back " + added + " after a failed transfer");
+        }
+        from.receiveDelivery(returned);
+        return false;
+    }
+
+    /**
+     * Saves the Commissary's Inventory and closes it.
+     */
+    public void close() {
+        this.inventory.checkpoint();
+        this.inventory.close();
+    }
+}
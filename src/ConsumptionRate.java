@@ -0,0 +1,85 @@
+import java.io.Serializable;
+
+/**
+ * Estimates how quickly an Ingredient is being used up, from the amounts taken out of stock over time.
+ *
+ * The estimate is an exponentially weighted moving average: each amount used counts for less the longer ago it was
+ * used, falling off with a time constant of TIME_CONSTANT_MS. Only the decayed total and the time it was last updated
+ * are kept, so every update takes constant time and memory no matter how many Orders are served.
+ */
+public class ConsumptionRate implements Serializable {
+
+    final private static long serialVersionUID = 1L;
+
+    // How quickly old usage stops counting. Usage from this long ago counts for about a third as much as usage now.
+    final private static long TIME_CONSTANT_MS = 60 * 60 * 1000;
+    final private static double MS_PER_HOUR = 60 * 60 * 1000;
+
+    // The sum of every amount used, each decayed by how long ago it was used, as of lastUpdate.
+    private double decayedTotal = 0;
+    // When decayedTotal was last brought up to date.
+    private long lastUpdate = -1;
+    // When the first amount was used. Until a few time constants have passed, the estimate is scaled up to make up for
+    // the missing history.
+    private long firstUpdate = -1;
+
+    /**
+     * Records that an amount of the Ingredient was used.
+     * @param amount The amount used.
+     * @param time The time it was used, in milliseconds.
+     */
+    public synchronized void record(int amount, long time) {
+        if (lastUpdate < 0) {
+            firstUpdate = time;
+        } else {
+            decayedTotal *= decay(time - lastUpdate);
+        }
+        decayedTotal += amount;
+        lastUpdate = Math.max(lastUpdate, time);
+    }
+
+    /**
+     * Returns the estimated amount of the Ingredient used per hour.
+     * @param now The current time, in milliseconds.
+     * @return The amount per hour, or 0 if none has been used yet.
+     */
+    public synchronized double getRatePerHour(long now) {
+        if (lastUpdate < 0) {
+            return 0;
+        }
+        double total = decayedTotal * decay(now - lastUpdate);
+        // A sum over the whole history would be spread over one time constant. Over a shorter history, only this
+        // fraction of that weight has built up yet. The history is counted as at least one time constant long, or the
+        // first few amounts used would look like a huge rate.
+        double coverage = 1 - decay(Math.max(now - firstUpdate, TIME_CONSTANT_MS));
+        return total / coverage / TIME_CONSTANT_MS * MS_PER_HOUR;
+    }
+
+    /**
+     * Returns the estimated number of hours until the specified amount of the Ingredient is used up.
+     * @param amount The amount currently in stock.
+     * @param now The current time, in milliseconds.
+     * @return The number of hours, or Double.POSITIVE_INFINITY if none is being used.
+     */
+    public double getHoursToStockout(int amount, long now) {
+        double rate = getRatePerHour(now);
+        if (rate <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(amount, 0) / rate;
+    }
+
+    /**
+     * Returns the amount of the Ingredient that is expected to be used over the specified number of hours.
+     * @param hours The number of hours.
+     * @param now The current time, in milliseconds.
+     * @return The expected amount, rounded up.
+     */
+    public int getExpectedUsage(double hours, long now) {
+        return (int) Math.ceil(getRatePerHour(now) * hours);
+    }
+
+    private static double decay(long elapsed) {
+        return Math.exp(-(double) Math.max(elapsed, 0) / TIME_CONSTANT_MS);
+    }
+}
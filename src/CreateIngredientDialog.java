@@ -137,10 +137,8 @@ public class CreateIngredientDialog extends Dialog {
         // Create an Ingredient based on the information.
         Ingredient ingredient = new Ingredient(this.getName(), this.getCurrentAmount(), this.getRestockThreshold(),
                 this.getRestockAmount());
-        // Only add this Ingredient to the Inventory if it does not already exist.
-        if (!this.inventory.getIngredients().containsKey(ingredient.getName())) {
-            this.inventory.getIngredients().put(ingredient.getName(), ingredient);
-        }
+        // Only adds this Ingredient to the Inventory if it does not already exist.
+        this.inventory.addNewIngredient(ingredient);
     }
 
     /**
@@ -133,13 +133,13 @@ public class CreateMenuItemDialog extends Dialog {
     public void processInfo() {
         // Add new Menu Item, if valid.
         String itemName = this.itemNameField.getText();
-        if (!this.manager.ourMenu.getMenuItems().containsKey(itemName)) {
+        if (!this.manager.ourMenu.getView().contains(itemName)) {
             // Catch exception, in case of invalid user input.
             try {
                 MenuItem newItem = new MenuItem(itemName, Integer.parseInt(this.itemCostField.getText()),
                         this.ingredientsToAdd);
-                // Update the Menu.
-                this.manager.ourMenu.getMenuItems().put(newItem.getName(), newItem);
+                // Publish the new version of the Menu.
+                this.manager.ourMenu.addMenuItem(newItem);
             } catch (NumberFormatException e) {}
         }
     }
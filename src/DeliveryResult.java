@@ -0,0 +1,11 @@
+/**
+ * The result of receiving one line of a delivery into an Inventory.
+ */
+public enum DeliveryResult {
+    // The amount was added to the stock.
+    ADDED,
+    // There is no Ingredient with that name in the Inventory, so nothing was added.
+    UNKNOWN_INGREDIENT,
+    // The quantity was missing, zero or negative, so nothing was added.
+    INVALID_QUANTITY,
+}
@@ -18,13 +18,16 @@ public class EditInventoryDialog extends Dialog {
     final private static String CURRENT_AMOUNT_LABEL = "Current amount: ";
     final private static String RESTOCK_THRESHOLD_LABEL = "Restock Threshold: ";
     final private static String REQUEST_AMOUNT_LABEL = "Request Amount: ";
+    final private static String STOCKOUT_LABEL = "Runs out in: ";
+    final private static String SUGGESTED_AMOUNT_LABEL = "Suggested Request Amount: ";
+    final private static String NOT_IN_USE_TEXT = "Not being used";
 
     // The margins for the content area.
     final private static Insets CONTENT_MARGINS = new Insets(10,10,10,10);
 
     // The default sizes of the Window.
     final private static int WINDOW_WIDTH = 450;
-    final private static int WINDOW_HEIGHT = 300;
+    final private static int WINDOW_HEIGHT = 380;
 
     // The height of the name label that displays name of Ingredient.
     final private static int NAME_LABEL_HEIGHT = 20;
@@ -46,17 +49,28 @@ public class EditInventoryDialog extends Dialog {
     private Label requestAmountLabel;
     private TextField requestAmountField;
 
+    // How soon the Ingredient will run out, and how much should be requested, at the rate it is being used.
+    private Label stockoutLabel;
+    private TextField stockoutField;
+    private Label suggestedAmountLabel;
+    private TextField suggestedAmountField;
+
     // The Ingredient that this Dialog is supposed to modify.
     private Ingredient ingredient;
 
+    // The Inventory that the Ingredient belongs to.
+    private Inventory inventory;
+
     /**
      * Create a new EditInventoryDialog, which allows users to edit a specific Ingredient.
      * @param windowName The name of the Window.
      * @param ingredient The Ingredient to edit.
+     * @param inventory The Inventory that the Ingredient belongs to.
      */
-    public EditInventoryDialog(String windowName, Ingredient ingredient) {
+    public EditInventoryDialog(String windowName, Ingredient ingredient, Inventory inventory) {
         super(windowName);
         this.ingredient = ingredient;
+        this.inventory = inventory;
         super.createAndShow();
         super.setWindowSize(EditInventoryDialog.WINDOW_WIDTH, EditInventoryDialog.WINDOW_HEIGHT);
     }
@@ -68,19 +82,29 @@ public class EditInventoryDialog extends Dialog {
         this.currentAmountLabel = new Label(EditInventoryDialog.CURRENT_AMOUNT_LABEL);
         this.restockThresholdLabel = new Label(EditInventoryDialog.RESTOCK_THRESHOLD_LABEL);
         this.requestAmountLabel = new Label(EditInventoryDialog.REQUEST_AMOUNT_LABEL);
+        this.stockoutLabel = new Label(EditInventoryDialog.STOCKOUT_LABEL);
+        this.suggestedAmountLabel = new Label(EditInventoryDialog.SUGGESTED_AMOUNT_LABEL);
         this.nameLabel.setTextFill(Color.WHITE);
         this.currentAmountLabel.setTextFill(Color.WHITE);
         this.restockThresholdLabel.setTextFill(Color.WHITE);
         this.requestAmountLabel.setTextFill(Color.WHITE);
+        this.stockoutLabel.setTextFill(Color.WHITE);
+        this.suggestedAmountLabel.setTextFill(Color.WHITE);
 
         // Sets up the TextFields for user input.
         this.currentAmountField = new TextField(String.valueOf(this.ingredient.getAmount()));
         this.restockThresholdField = new TextField(String.valueOf(this.ingredient.getRestockThreshold()));
         this.requestAmountField = new TextField(String.valueOf(this.ingredient.getRequestAmount()));
+        this.stockoutField = new TextField(this.getStockoutText());
+        this.suggestedAmountField = new TextField(String.valueOf(this.ingredient.getSuggestedRequestAmount()));
 
-        // Disable user from editing Ingredient amount.
+        // Disable user from editing Ingredient amount and the estimates.
         this.currentAmountField.setEditable(false);
         this.currentAmountField.setDisable(true);
+        this.stockoutField.setEditable(false);
+        this.stockoutField.setDisable(true);
+        this.suggestedAmountField.setEditable(false);
+        this.suggestedAmountField.setDisable(true);
 
         // Prevent user from entering in non-numeric characters.
         this.restockThresholdField.textProperty().addListener(this.createNumbersOnlyListener(
@@ -114,13 +138,19 @@ public class EditInventoryDialog extends Dialog {
         gridPane.add(this.restockThresholdField, 1, 2);
         gridPane.add(this.requestAmountLabel, 0, 3);
         gridPane.add(this.requestAmountField, 1, 3);
+        gridPane.add(this.stockoutLabel, 0, 4);
+        gridPane.add(this.stockoutField, 1, 4);
+        gridPane.add(this.suggestedAmountLabel, 0, 5);
+        gridPane.add(this.suggestedAmountField, 1, 5);
 
-        gridPane.setHalignment(this.currentAmountLabel, HPos.CENTER);
-        gridPane.setHalignment(this.restockThresholdLabel, HPos.CENTER);
-        gridPane.setHalignment(this.requestAmountLabel, HPos.CENTER);
+        GridPane.setHalignment(this.currentAmountLabel, HPos.CENTER);
+        GridPane.setHalignment(this.restockThresholdLabel, HPos.CENTER);
+        GridPane.setHalignment(this.requestAmountLabel, HPos.CENTER);
+        GridPane.setHalignment(this.stockoutLabel, HPos.CENTER);
+        GridPane.setHalignment(this.suggestedAmountLabel, HPos.CENTER);
 
         // Fill parent.
-        gridPane.setHgrow(this.currentAmountField, Priority.ALWAYS);
+        GridPane.setHgrow(this.currentAmountField, Priority.ALWAYS);
 
         // The content pane that holds everything.
         BorderPane contents = new BorderPane();
@@ -140,11 +170,11 @@ public class EditInventoryDialog extends Dialog {
             return;
         }
 
-        // Set the new Ingredient information.
+        // Set the new Ingredient information through the Inventory, so that the change is saved.
         int restockThreshold = this.getRestockThreshold();
-        this.ingredient.setRestockThreshold(restockThreshold);
+        this.inventory.changeRequestThreshold(this.ingredient.getName(), restockThreshold);
         int restockAmount = this.getRestockAmount();
-        this.ingredient.setRequestAmount(restockAmount);
+        this.inventory.changeRequestAmount(this.ingredient.getName(), restockAmount);
     }
 
     /**
@@ -160,6 +190,18 @@ public class EditInventoryDialog extends Dialog {
         return numberListener;
     }
 
+    /**
+     * Returns how long until the Ingredient runs out, as text to display.
+     * @return The number of hours, or NOT_IN_USE_TEXT if the Ingredient is not being used.
+     */
+    private String getStockoutText() {
+        double hours = this.ingredient.getHoursToStockout();
+        if (Double.isInfinite(hours)) {
+            return EditInventoryDialog.NOT_IN_USE_TEXT;
+        }
+        return String.format("%.1f hours", hours);
+    }
+
     /**
      * Return the restock threshold.
      * @return The restock threshold.
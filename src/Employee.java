@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The Employee class represents a specific Employee. It stores it's name and unique id.
@@ -12,25 +13,29 @@ import java.util.ArrayList;
 public abstract class Employee implements EventCreator, EventReceiver {
     private ArrayList<EventReceiver> observers = new ArrayList<>();
     private String name;
-    // Static field that is used to generate a unique id whenever new instance of Employee class is created.
-    private static int nextId;
-    private int id;
+    // Unique within the Restaurant, and the same every time the Restaurant starts.
+    private long id;
     Menu ourMenu;
     Inventory inventory;
+    OrderBook orderBook;
+    // The screen showing this Employee's lists, which is told about the Events routed to this Employee, or null.
+    private volatile EventReceiver display;
 
     /**
      * Constructor for Employee class. Note that Employees should not be instantiated directly - instead instantiate
      * one of the subclasses.
+     * @param id The id of the Employee, which must stay the same across restarts.
      * @param name The name of the Employee.
      * @param ourMenu The Restaurant's menu.
      * @param inventory The Restaurant's inventory.
+     * @param orderBook The Restaurant's OrderBook.
      */
-    public Employee(String name, Menu ourMenu, Inventory inventory) {
+    public Employee(long id, String name, Menu ourMenu, Inventory inventory, OrderBook orderBook) {
         this.name = name;
-        // Assign and then increment.
-        this.id = Employee.nextId ++;
+        this.id = id;
         this.ourMenu = ourMenu;
         this.inventory = inventory;
+        this.orderBook = orderBook;
     }
 
     @Override
@@ -45,8 +50,51 @@ public abstract class Employee implements EventCreator, EventReceiver {
 
     @Override
     public void sendEvent(Event event) {
+        // Decided before sending, since the Event may be released and reused as soon as a receiver has it.
+        boolean released = false;
+        // Indexed rather than iterated, so that sending an Event does not create an iterator.
+        for (int i = 0; i < this.observers.size(); i++) {
+            released |= this.observers.get(i).releasesEvents();
+        }
+        for (int i = 0; i < this.observers.size(); i++) {
+            this.observers.get(i).handleEvent(event);
+        }
+        if (!released) {
+            event.release();
+        }
+    }
+
+    @Override
+    public void sendEvents(List<Event> events) {
         for (EventReceiver observer : this.observers) {
-            observer.handleEvent(event);
+            observer.handleEvents(events);
+        }
+    }
+
+    /**
+     * Subscribes this Employee to the Events it needs from an EventRouter. By default an Employee needs none.
+     * @param router The EventRouter.
+     */
+    public void subscribe(EventRouter router) {
+    }
+
+    /**
+     * Sets the screen showing this Employee's lists, so it can update them when an Event changes them.
+     * @param display The screen, or null if nothing is showing this Employee's lists.
+     */
+    public void setDisplay(EventReceiver display) {
+        this.display = display;
+    }
+
+    /**
+     * Tells the screen showing this Employee's lists about an Event, if there is one. The Event is handed to it on
+     * the EventBus's thread, and may be reused once it returns.
+     * @param event The Event.
+     */
+    void updateDisplay(Event event) {
+        EventReceiver display = this.display;
+        if (display != null) {
+            display.handleEvent(event);
         }
     }
 
@@ -70,11 +118,19 @@ public abstract class Employee implements EventCreator, EventReceiver {
      * Returns the id of this Employee.
      * @return The id of this Employee.
      */
-    public int getId(){
+    public long getId(){
         return this.id;
     }
 
     public Inventory getInventory() {
         return inventory;
     }
+
+    /**
+     * Returns the OrderBook that keeps track of the Restaurant's Orders.
+     * @return The OrderBook.
+     */
+    public OrderBook getOrderBook() {
+        return orderBook;
+    }
 }
@@ -1,9 +1,36 @@
 /**
  * The Event class represents an Event. Events hold the id of it's intended recipient, as well as a line of text that
  * represent the Event that tells the recipient what to do.
+ *
+ * Events that are sent while the Restaurant is running should be taken from the pool with claim(), rather than
+ * created. The EventBus releases each one back to the pool once every consumer has handled it, so nothing may keep a
+ * claimed Event after handling it. An Event that is claimed but never reaches a receiver that releases Events, such
+ * as a Restaurant, must be released by whoever claimed it, or the pool slowly runs dry. The Order, Server and Chef an
+ * Event is about are kept as ids as well as by reference and name, so they can be compared without touching the
+ * Strings.
+ *
+ * The fields of an Event are plain, not volatile, and are written by the sender and read on the EventBus's threads.
+ * This is only safe because the bus sets the volatile sequence number of an Event's slot after the Event is stored
+ * and consumers read that number before the Event, so everything the sender set happens-before any consumer handles
+ * it. An Event must be filled in completely before it is sent, and its sender must not touch it afterwards, since it
+ * may already have been handled, released and claimed again.
  */
 public class Event {
 
+    // The recipient of an Event that is not meant for any one Employee.
+    final public static long EVERYONE = -1;
+    // The id of an Order, Server or Chef that an Event is not about.
+    final public static long NO_ID = -1;
+    // The number of Events in the pool. Must be a power of two, and should be well above the size of the EventBus,
+    // since each Event stays in the bus's ring until its slot is reused.
+    final private static int POOL_SIZE = 4096;
+    final private static EventPool pool = new EventPool(POOL_SIZE);
+
+    // The pool this Event goes back to once it has been handled, or null if it was created directly.
+    private final EventPool owner;
+    // Whether this Event is in its pool, so that releasing it twice does nothing.
+    private boolean free;
+
     // Whether or not this Event has already been received and handled.
     private boolean handled;
 
@@ -19,6 +46,12 @@ public class Event {
     private String chefName;
     private String serverName;
     private String info = "";
+    // The id of the Employee this Event is meant for, or EVERYONE.
+    private long recipient = EVERYONE;
+    // The ids of the Order, the Server and the Chef this Event is about, or NO_ID.
+    private long orderId = NO_ID;
+    private long serverId = NO_ID;
+    private long chefId = NO_ID;
 
 
     /**
@@ -27,10 +60,63 @@ public class Event {
      */
     public Event(EventType eventType) {
         this.eventType = eventType;
+        this.owner = null;
+    }
+
+    /**
+     * Creates a free Event for a pool.
+     * @param owner The pool.
+     */
+    Event(EventPool owner) {
+        this.owner = owner;
+        this.free = true;
     }
 
+    /**
+     * Takes an Event from the pool, or creates one if every pooled Event is in use.
+     * @param eventType The type of the Event.
+     * @return The Event, with nothing else set.
+     */
+    public static Event claim(EventType eventType) {
+        Event event = pool.claim();
+        if (event == null) {
+            return new Event(eventType);
+        }
+        event.free = false;
+        event.eventType = eventType;
+        return event;
+    }
+
+    /**
+     * Clears this Event and puts it back into its pool, once every receiver has handled it. Does nothing for an
+     * Event that was not claimed from a pool, or that has already been released.
+     */
+    public void release() {
+        if (owner == null || free) {
+            return;
+        }
+        free = true;
+        handled = false;
+        eventType = null;
+        order = null;
+        exp = null;
+        chefName = null;
+        serverName = null;
+        info = "";
+        recipient = EVERYONE;
+        orderId = NO_ID;
+        serverId = NO_ID;
+        chefId = NO_ID;
+        owner.release(this);
+    }
+
+    /**
+     * Sets the Order this Event is about, along with its id.
+     * @param order The Order.
+     */
     public void addOrder(Order order){
         this.order = order;
+        this.orderId = order == null ? NO_ID : order.getId();
     }
 
     public Order getOrder(){
@@ -81,6 +167,66 @@ public class Event {
         return serverName;
     }
 
+    /**
+     * Sets the Server this Event is about.
+     * @param serverId The id of the Server.
+     * @param serverName The name of the Server.
+     */
+    public void setServer(long serverId, String serverName){
+        this.serverId = serverId;
+        this.serverName = serverName;
+    }
+
+    /**
+     * Sets the Chef this Event is about.
+     * @param chefId The id of the Chef.
+     * @param chefName The name of the Chef.
+     */
+    public void setChef(long chefId, String chefName){
+        this.chefId = chefId;
+        this.chefName = chefName;
+    }
+
+    /**
+     * Returns the id of the Order this Event is about.
+     * @return The id, or NO_ID.
+     */
+    public long getOrderId(){
+        return orderId;
+    }
+
+    /**
+     * Returns the id of the Server this Event is about.
+     * @return The id, or NO_ID.
+     */
+    public long getServerId(){
+        return serverId;
+    }
+
+    /**
+     * Returns the id of the Chef this Event is about.
+     * @return The id, or NO_ID.
+     */
+    public long getChefId(){
+        return chefId;
+    }
+
+    /**
+     * Sets the Employee that this Event is meant for, so that it is only routed to them.
+     * @param employeeId The id of the Employee, or EVERYONE.
+     */
+    public void setRecipient(long employeeId){
+        this.recipient = employeeId;
+    }
+
+    /**
+     * Returns the id of the Employee that this Event is meant for.
+     * @return The id of the Employee, or EVERYONE.
+     */
+    public long getRecipient(){
+        return recipient;
+    }
+
     public void setInfo(String info){
         this.info = info;
     }
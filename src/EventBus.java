@@ -0,0 +1,296 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The EventBus hands Events from the threads that create them to consumers that each run on their own thread, so
+ * sending an Event only costs putting it into a slot, no matter how many consumers there are.
+ *
+ * Events go into a ring of slots that are all created up front. Each Event gets the next sequence number, and each
+ * consumer works through the sequence numbers in order, so every consumer sees every Event in the order it was
+ * published. A consumer can be made to wait for other consumers, so that it only sees an Event once they have handled
+ * it. When the ring is full, publishers wait for the slowest consumer to free up a slot.
+ *
+ * How consumers wait for new Events is set by a WaitStrategy.
+ *
+ * An Event stays in its slot until the slot is reused, which only happens once every consumer has handled it. It is
+ * then released back to its pool, so pooled Events are reused without any consumer having to say when it is done.
+ */
+public class EventBus {
+
+    /**
+     * One slot of the ring.
+     */
+    private static class Slot {
+        private Event event;
+        // The sequence number of the Event in this slot once it has been published.
+        private volatile long published = -1;
+    }
+
+    /**
+     * A consumer of the EventBus, which hands every Event to an EventReceiver on its own thread.
+     */
+    public class Consumer implements Runnable {
+        private final String name;
+        private final EventReceiver receiver;
+        // The consumers that must handle an Event before this one does.
+        private final Consumer[] after;
+        // Whether any consumer waits for this one, and so must be woken up when this one moves on.
+        private boolean hasDependents;
+        // The sequence number of the last Event this consumer has handled.
+        private final AtomicLong sequence = new AtomicLong(-1);
+        // The sequence number this consumer is waiting for.
+        private long next;
+        // Created once, so waiting does not create garbage.
+        private final BooleanSupplier ready = () -> isAvailable(next) || closed;
+        private Thread thread;
+
+        private Consumer(String name, EventReceiver receiver, Consumer[] after) {
+            this.name = name;
+            this.receiver = receiver;
+            this.after = after;
+        }
+
+        /**
+         * Returns whether the Event with the specified sequence number is ready for this consumer.
+         */
+        private boolean isAvailable(long wanted) {
+            if (slots[(int) (wanted & mask)].published != wanted) {
+                return false;
+            }
+            for (Consumer consumer : after) {
+                if (consumer.sequence.get() < wanted) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            next = sequence.get() + 1;
+            try {
+                while (true) {
+                    waitStrategy.waitFor(ready);
+                    if (!isAvailable(next)) {
+                        if (next >= nextSequence.get()) {
+                            // Closed, and every Event has been handled.
+                            return;
+                        }
+                        // Closed, but there are still Events to handle once they are ready.
+                        Thread.yield();
+                        continue;
+                    }
+                    // Handle everything that is ready in one go, and only then let the publishers and the consumers
+                    // waiting on this one know.
+                    long last = next;
+                    while (isAvailable(last + 1)) {
+                        last++;
+                    }
+                    for (long current = next; current <= last; current++) {
+                        try {
+                            receiver.handleEvent(slots[(int) (current & mask)].event);
+                        } catch (RuntimeException e) {
+                            System.out.println(name + ": " + e.getMessage());
+                        }
+                    }
+                    sequence.set(last);
+                    next = last + 1;
+                    if (hasDependents) {
+                        waitStrategy.signalAll();
+                    }
+                }
+            } catch (InterruptedException e) {
+                System.out.println(name + " was interrupted");
+            }
+        }
+
+        /**
+         * Returns the name of this consumer.
+         * @return The name.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Returns the number of Events that have been published but not yet handled by this consumer.
+         * @return The number of Events.
+         */
+        public long getBacklog() {
+            return nextSequence.get() - 1 - sequence.get();
+        }
+    }
+
+    // How publishers wait for room in the ring. Consumers do not signal it, so it must not block.
+    final private static WaitStrategy PUBLISHER_WAIT = new WaitStrategy.Sleeping();
+
+    private final Slot[] slots;
+    // Slots are found with sequence & mask, which is why the ring's size must be a power of two.
+    private final long mask;
+    private final WaitStrategy waitStrategy;
+    // The next sequence number to hand out to a publisher.
+    private final AtomicLong nextSequence = new AtomicLong(0);
+    private final List<Consumer> consumers = new ArrayList<>();
+    // The same consumers as an array, which publishers can go through without creating an iterator.
+    private volatile Consumer[] gating = new Consumer[0];
+    private volatile boolean closed;
+
+    /**
+     * Creates an EventBus.
+     * @param size The number of slots in the ring. Must be a power of two.
+     * @param waitStrategy How consumers wait for new Events.
+     * @throws IllegalArgumentException If size is not a power of two.
+     */
+    public EventBus(int size, WaitStrategy waitStrategy) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("the size of an EventBus must be a power of two");
+        }
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Adds a consumer. Consumers must all be added before start() is called.
+     * @param name The name of the consumer, which its thread is named after.
+     * @param receiver What to hand each Event to.
+     * @param after The consumers that must handle each Event before this one.
+     * @return The consumer.
+     */
+    public synchronized Consumer addConsumer(String name, EventReceiver receiver, Consumer... after) {
+        if (!consumers.isEmpty() && consumers.get(0).thread != null) {
+            throw new IllegalStateException("consumers must be added before the EventBus is started");
+        }
+        Consumer consumer = new Consumer(name, receiver, after);
+        for (Consumer before : after) {
+            before.hasDependents = true;
+        }
+        consumers.add(consumer);
+        gating = consumers.toArray(new Consumer[0]);
+        return consumer;
+    }
+
+    /**
+     * Starts a thread for every consumer.
+     */
+    public synchronized void start() {
+        for (Consumer consumer : consumers) {
+            consumer.thread = new Thread(consumer, "EventBus " + consumer.name);
+            consumer.thread.setDaemon(true);
+            consumer.thread.start();
+        }
+    }
+
+    /**
+     * Publishes an Event to every consumer. Returns as soon as the Event is in the ring, unless the ring is full. Must
+     * not be called by a consumer, since a full ring would then wait for that consumer forever.
+     * @param event The Event.
+     */
+    public void publish(Event event) {
+        long sequence = claim(1);
+        Slot slot = slots[(int) (sequence & mask)];
+        Event handled = slot.event;
+        slot.event = event;
+        slot.published = sequence;
+        waitStrategy.signalAll();
+        release(handled, event);
+    }
+
+    /**
+     * Publishes a batch of Events to every consumer. As long as the batch fits in the ring, the Events get consecutive
+     * sequence numbers, so no other Event comes between them, and the waiting consumers are only woken up once.
+     * @param events The Events, in order.
+     */
+    public void publishAll(List<Event> events) {
+        int start = 0;
+        while (start < events.size()) {
+            int count = Math.min(events.size() - start, slots.length);
+            long first = claim(count);
+            for (int i = 0; i < count; i++) {
+                Slot slot = slots[(int) ((first + i) & mask)];
+                Event handled = slot.event;
+                slot.event = events.get(start + i);
+                slot.published = first + i;
+                release(handled, slot.event);
+            }
+            start += count;
+        }
+        waitStrategy.signalAll();
+    }
+
+    /**
+     * Releases the Event that was in a slot before it was reused. Every consumer has handled it by then.
+     * @param handled The Event that was in the slot, or null if the slot had not been used.
+     * @param replacement The Event now in the slot, which is not released even if it is the same Event.
+     */
+    private static void release(Event handled, Event replacement) {
+        if (handled != null && handled != replacement) {
+            handled.release();
+        }
+    }
+
+    /**
+     * Claims the next sequence numbers, waiting until the slowest consumer has finished with the slots they use.
+     * @param count The number of sequence numbers to claim.
+     * @return The first sequence number claimed.
+     */
+    private long claim(int count) {
+        if (closed) {
+            throw new IllegalStateException("the EventBus has been closed");
+        }
+        long first = nextSequence.getAndAdd(count);
+        long wrapPoint = first + count - 1 - slots.length;
+        if (getMinimumSequence() < wrapPoint) {
+            try {
+                PUBLISHER_WAIT.waitFor(() -> getMinimumSequence() >= wrapPoint);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Returns the sequence number of the last Event that every consumer has handled.
+     */
+    private long getMinimumSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (Consumer consumer : gating) {
+            minimum = Math.min(minimum, consumer.sequence.get());
+        }
+        return minimum;
+    }
+
+    /**
+     * Returns the consumers of this EventBus.
+     * @return The consumers.
+     */
+    public synchronized List<Consumer> getConsumers() {
+        return new ArrayList<>(consumers);
+    }
+
+    /**
+     * Stops taking new Events, waits for the consumers to handle every Event already published, and stops their
+     * threads.
+     */
+    public void close() {
+        closed = true;
+        waitStrategy.signalAll();
+        for (Consumer consumer : getConsumers()) {
+            if (consumer.thread == null) {
+                continue;
+            }
+            try {
+                consumer.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
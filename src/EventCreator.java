@@ -1,4 +1,4 @@
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  * EventCreator interface. Whenever it creates an Event, it notifies all EventReceivers watching it and sends them
@@ -23,4 +23,14 @@ public interface EventCreator {
      * @param event The Event to send to the EventObservers.
      */
     void sendEvent(Event event);
+
+    /**
+     * Notify and send to all EventObservers listening in of a batch of Events, in order.
+     * @param events The Events to send to the EventObservers.
+     */
+    default void sendEvents(List<Event> events) {
+        for (Event event : events) {
+            sendEvent(event);
+        }
+    }
 }
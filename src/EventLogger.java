@@ -1,31 +1,314 @@
-import java.io.File;
-import java.io.IOException;
-import java.util.logging.FileHandler;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * The EventLogger writes a line to 'logs.txt' for every Event, with the Order, table, Server and Chef it is about.
+ * Each line is tab separated: the time in milliseconds, the type of the Event, the Order id, the table number, the
+ * Server, the Chef, and any extra information. Fields that do not apply are written as "-".
+ *
+ * Logging an Event only copies its fields into a slot of a ring that is created up front, which is claimed with
+ * compare-and-set rather than a lock. A background thread turns the slots into lines and writes them out, so the
+ * thread that logs never waits for the disk. If the ring fills up faster than the file can be written, further Events
+ * are counted and dropped rather than queued, so a burst can not use up memory, and the number dropped is written to
+ * the log once there is room again.
+ *
+ * The log is rotated once it reaches MAX_FILE_SIZE bytes or is ROTATE_INTERVAL_MS old. The current file is renamed to
+ * 'logs.txt.1', older files move up by one, and only MAX_OLD_FILES of them are kept.
+ */
 public class EventLogger {
-    private Logger logger;
-    private FileHandler fh;
 
+    /**
+     * One slot of the ring, holding what is logged about one Event.
+     */
+    private static class Entry {
+        // The position in the ring this slot can next be claimed for, or that position + 1 once it holds an entry.
+        private volatile long sequence;
+        private long time;
+        // The type of Event, or null for a message that is not about an Event.
+        private EventType type;
+        private long orderId;
+        private int table;
+        private String server;
+        private String chef;
+        private String info;
+    }
+
+    // The file that the log is written to.
+    final private static String LOG_FILE = "logs.txt";
+    // The number of entries that can wait to be written. Must be a power of two.
+    final private static int RING_SIZE = 8192;
+    // How long the writer sleeps when there is nothing to write.
+    final private static long IDLE_WAIT_NANOS = 20_000_000L;
+    // The size and age at which the log is rotated, and the number of old logs kept.
+    final private static long MAX_FILE_SIZE = 10L * 1024 * 1024;
+    final private static long ROTATE_INTERVAL_MS = 24L * 60 * 60 * 1000;
+    final private static int MAX_OLD_FILES = 5;
+    // Written for fields that do not apply.
+    final private static String NONE = "-";
+
+    private final Entry[] ring = new Entry[RING_SIZE];
+    private final int mask = RING_SIZE - 1;
+    // The next position for a logging thread to claim.
+    private final AtomicLong tail = new AtomicLong();
+    // The next position for the writer to write. Only changed by the writer.
+    private volatile long head;
+    // The number of entries dropped because the ring was full, since the writer last reported it.
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final File file;
+    private Writer out;
+    // The number of bytes in the current file, and when it was started.
+    private long fileSize;
+    private long fileStarted;
+    // Each line is built here, and copied into chars to be written, so writing a line does not create a String.
+    private final StringBuilder line = new StringBuilder(128);
+    private char[] chars = new char[128];
+
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Creates an EventLogger that writes to 'logs.txt' in the working directory.
+     */
     public EventLogger() {
+        this(new File("."));
+    }
+
+    /**
+     * Creates an EventLogger that writes to 'logs.txt' in the specified directory, adding to what is already there.
+     * @param directory The Restaurant's directory.
+     */
+    public EventLogger(File directory) {
+        for (int i = 0; i < RING_SIZE; i++) {
+            ring[i] = new Entry();
+            ring[i].sequence = i;
+        }
+        this.file = new File(directory, LOG_FILE);
+        try {
+            open();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+        writer = new Thread(this::writeLoop, "Event logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Logs an Event. Returns straight away; the line is written by the background thread.
+     * @param event The Event.
+     * @return True if the Event was logged, false if it was dropped because too many Events are waiting.
+     */
+    public boolean log(Event event) {
+        Order order = event.getOrder();
+        Entry entry = claim();
+        if (entry == null) {
+            return false;
+        }
+        entry.time = System.currentTimeMillis();
+        entry.type = event.getEventType();
+        entry.orderId = order == null ? -1 : order.getId();
+        entry.table = order == null ? -1 : order.getTableNumber();
+        entry.server = event.getServer() != null || order == null ? event.getServer() : order.getServerName();
+        entry.chef = event.getChef() != null ? event.getChef() : event.getExp();
+        entry.info = event.getInfo();
+        publish(entry);
+        return true;
+    }
+
+    /**
+     * Logs a message that is not about an Event.
+     * @param message The message.
+     */
+    public void logInfo(String message) {
+        Entry entry = claim();
+        if (entry == null) {
+            return;
+        }
+        entry.time = System.currentTimeMillis();
+        entry.type = null;
+        entry.orderId = -1;
+        entry.table = -1;
+        entry.server = null;
+        entry.chef = null;
+        entry.info = message;
+        publish(entry);
+    }
+
+    /**
+     * Claims the next slot of the ring.
+     * @return The slot, or null if the ring is full.
+     */
+    private Entry claim() {
+        long position = tail.get();
+        while (true) {
+            Entry entry = ring[(int) (position & mask)];
+            long difference = entry.sequence - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return entry;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The writer has not finished with this slot since the last time round the ring.
+                dropped.incrementAndGet();
+                return null;
+            } else {
+                // Another thread claimed this position first.
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hands a filled slot to the writer, and wakes the writer up if the ring is getting full.
+     */
+    private void publish(Entry entry) {
+        long position = entry.sequence;
+        entry.sequence = position + 1;
+        if (position - head >= RING_SIZE / 2) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Run by the background thread: writes out entries as they are published, and rotates the log when it is due.
+     */
+    private void writeLoop() {
+        while (true) {
+            boolean wrote = false;
+            Entry entry = ring[(int) (head & mask)];
+            while (entry.sequence == head + 1) {
+                write(entry);
+                // Clear the references, so the slot does not keep Orders or names alive.
+                entry.server = null;
+                entry.chef = null;
+                entry.info = null;
+                entry.sequence = head + RING_SIZE;
+                head++;
+                wrote = true;
+                entry = ring[(int) (head & mask)];
+            }
+            long lost = dropped.getAndSet(0);
+            if (lost > 0) {
+                line.setLength(0);
+                line.append(System.currentTimeMillis()).append("\tDROPPED\t-\t-\t-\t-\t").append(lost);
+                writeLine();
+            }
+            try {
+                if (out != null && (wrote || lost > 0)) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+            if (closed && ring[(int) (head & mask)].sequence != head + 1) {
+                closeFile();
+                return;
+            }
+            if (!wrote) {
+                LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        line.setLength(0);
+        line.append(entry.time).append('\t').append(entry.type == null ? "INFO" : entry.type.name()).append('\t');
+        if (entry.orderId < 0) {
+            line.append(NONE).append('\t').append(NONE);
+        } else {
+            line.append(entry.orderId).append('\t').append(entry.table);
+        }
+        line.append('\t').append(entry.server == null ? NONE : entry.server);
+        line.append('\t').append(entry.chef == null ? NONE : entry.chef);
+        line.append('\t').append(entry.info == null || entry.info.isEmpty() ? NONE : entry.info);
+        writeLine();
+    }
+
+    /**
+     * Writes the line that has been built, rotating the log first if it is due.
+     */
+    private void writeLine() {
+        if (out == null) {
+            return;
+        }
         try {
-            File file = new File("logs.txt");
-            if (!file.exists()) {
-                file.createNewFile();
+            if (fileSize >= MAX_FILE_SIZE || System.currentTimeMillis() - fileStarted >= ROTATE_INTERVAL_MS) {
+                rotate();
+            }
+            line.append('\n');
+            if (chars.length < line.length()) {
+                chars = new char[line.length() * 2];
+            }
+            line.getChars(0, line.length(), chars, 0);
+            out.write(chars, 0, line.length());
+            // Close enough for deciding when to rotate, since names are almost always ASCII.
+            fileSize += line.length();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void open() throws IOException {
+        out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+        fileSize = file.length();
+        fileStarted = System.currentTimeMillis();
+    }
+
+    /**
+     * Moves the current log to 'logs.txt.1', moving older logs up by one and deleting the oldest, and starts a new
+     * log.
+     */
+    private void rotate() throws IOException {
+        out.close();
+        File oldest = new File(file.getPath() + "." + MAX_OLD_FILES);
+        if (oldest.exists() && !oldest.delete()) {
+            System.out.println("Could not delete " + oldest);
+        }
+        for (int i = MAX_OLD_FILES - 1; i >= 1; i--) {
+            File older = new File(file.getPath() + "." + i);
+            if (older.exists() && !older.renameTo(new File(file.getPath() + "." + (i + 1)))) {
+                System.out.println("Could not move " + older);
             }
-            fh = new FileHandler(file.getName());
-            logger = Logger.getLogger("Event Logger");
-            logger.addHandler(fh);
-            logger.setLevel(Level.INFO);
         }
-        catch(Exception e){
-            System.out.println(e.getStackTrace());
+        if (!file.renameTo(new File(file.getPath() + ".1"))) {
+            System.out.println("Could not move " + file);
+        }
+        open();
+    }
+
+    private void closeFile() {
+        try {
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
         }
     }
 
-    public void logInfo(String message){
-        logger.info(message);
+    /**
+     * Returns the number of Events that were dropped because too many were waiting to be written, and have not been
+     * reported in the log yet.
+     * @return The number of Events.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes out every Event logged so far and closes the log.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
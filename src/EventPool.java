@@ -0,0 +1,104 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed set of Events that are used over and over, so that sending an Event does not create garbage once the
+ * Restaurant is running.
+ *
+ * The free Events are kept in a ring, where each slot has a sequence number saying whether it holds a free Event.
+ * Claiming and releasing an Event each take one compare-and-set, and never a lock, so any thread can send and any
+ * thread can release. If every Event is in use, claim() returns null and the caller creates an ordinary Event, so a
+ * burst only costs garbage and never waits.
+ */
+public class EventPool {
+    private final Event[] slots;
+    // For each slot, the position it can next be taken at + 1 if it holds a free Event, or the position it can next
+    // be filled at if it does not.
+    private final AtomicLongArray sequences;
+    private final int mask;
+    // The next position to take a free Event from, and the next position to put one back at.
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    // The number of times there was no free Event.
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a pool full of free Events.
+     * @param size The number of Events. Must be a power of two.
+     * @throws IllegalArgumentException If size is not a power of two.
+     */
+    public EventPool(int size) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("the size of an EventPool must be a power of two");
+        }
+        this.slots = new Event[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Event(this);
+            sequences.set(i, i + 1);
+        }
+        tail.set(size);
+    }
+
+    /**
+     * Takes a free Event out of the pool.
+     * @return The Event, or null if every Event is in use.
+     */
+    public Event claim() {
+        long position = head.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    Event event = slots[index];
+                    slots[index] = null;
+                    sequences.set(index, position + slots.length);
+                    return event;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                misses.incrementAndGet();
+                return null;
+            } else {
+                // Another thread took this position first.
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * Puts an Event back into the pool once nothing refers to it any more.
+     * @param event The Event, which must have come from this pool.
+     * @return True if the Event was put back, false if the pool is already full.
+     */
+    boolean release(Event event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = event;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                // Another thread filled this position first.
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of times an Event was asked for while every Event was in use.
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.List;
+
 /**
  * The EventReceiver interface. EventObservers are given Events, which they have to handle.
  */
@@ -9,4 +11,23 @@ public interface EventReceiver {
      */
     void handleEvent(Event event);
 
+    /**
+     * Handles a batch of Events, in order.
+     * @param events The Events that this EventReceiver has to handle.
+     */
+    default void handleEvents(List<Event> events) {
+        for (Event event : events) {
+            handleEvent(event);
+        }
+    }
+
+    /**
+     * Returns whether this EventReceiver takes over the Events it is given and releases each pooled one once it has
+     * been handled. An EventCreator none of whose receivers do must release the Events it claimed itself.
+     * @return True if this EventReceiver releases the Events it is given.
+     */
+    default boolean releasesEvents() {
+        return false;
+    }
+
 }
@@ -0,0 +1,158 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The EventRouter passes each Event on only to the EventReceivers that subscribed to it, instead of to everyone.
+ *
+ * A receiver can subscribe to every Event of a type, or only to the Events of a type that are meant for a particular
+ * Employee, such as the ORDER_READY Events for one Server. Subscriptions are indexed by type and by Employee id, so
+ * passing on an Event only touches the receivers that get it, however many Employees there are.
+ *
+ * Subscriptions change rarely and Events are passed on all the time, so the subscriptions of each type are kept in
+ * arrays that are copied and replaced whenever they change. Passing on an Event then needs no lock, and finds the
+ * recipient with a binary search on the primitive id, so it creates no iterators or boxed ids.
+ */
+public class EventRouter implements EventReceiver {
+
+    /**
+     * The subscriptions to one type of Event. Never changed once it has been created.
+     */
+    private static class Subscriptions {
+        // The receivers that get every Event of the type.
+        private final EventReceiver[] all;
+        // The ids of the Employees with subscriptions of their own, in ascending order.
+        private final long[] recipients;
+        // The receivers for each Employee, in the same order as recipients.
+        private final EventReceiver[][] byRecipient;
+
+        private Subscriptions(EventReceiver[] all, long[] recipients, EventReceiver[][] byRecipient) {
+            this.all = all;
+            this.recipients = recipients;
+            this.byRecipient = byRecipient;
+        }
+    }
+
+    final private static Subscriptions NONE =
+            new Subscriptions(new EventReceiver[0], new long[0], new EventReceiver[0][]);
+
+    // The subscriptions to each type of Event, by the type's ordinal.
+    private final AtomicReferenceArray<Subscriptions> subscriptions =
+            new AtomicReferenceArray<>(EventType.values().length);
+
+    /**
+     * Creates an EventRouter with no subscriptions.
+     */
+    public EventRouter() {
+        for (int i = 0; i < subscriptions.length(); i++) {
+            subscriptions.set(i, NONE);
+        }
+    }
+
+    /**
+     * Subscribes a receiver to every Event of a type.
+     * @param type The type of Event.
+     * @param receiver The receiver.
+     */
+    public synchronized void subscribe(EventType type, EventReceiver receiver) {
+        Subscriptions current = subscriptions.get(type.ordinal());
+        subscriptions.set(type.ordinal(),
+                new Subscriptions(add(current.all, receiver), current.recipients, current.byRecipient));
+    }
+
+    /**
+     * Subscribes a receiver to the Events of a type that are meant for a particular Employee.
+     * @param type The type of Event.
+     * @param employeeId The id of the Employee.
+     * @param receiver The receiver.
+     */
+    public synchronized void subscribe(EventType type, long employeeId, EventReceiver receiver) {
+        Subscriptions current = subscriptions.get(type.ordinal());
+        int index = Arrays.binarySearch(current.recipients, employeeId);
+        long[] recipients = current.recipients;
+        EventReceiver[][] byRecipient;
+        if (index >= 0) {
+            byRecipient = current.byRecipient.clone();
+            byRecipient[index] = add(byRecipient[index], receiver);
+        } else {
+            // Insert the Employee where the binary search says it belongs, to keep the ids in order.
+            index = -index - 1;
+            recipients = new long[current.recipients.length + 1];
+            byRecipient = new EventReceiver[recipients.length][];
+            System.arraycopy(current.recipients, 0, recipients, 0, index);
+            System.arraycopy(current.byRecipient, 0, byRecipient, 0, index);
+            recipients[index] = employeeId;
+            byRecipient[index] = new EventReceiver[]{receiver};
+            System.arraycopy(current.recipients, index, recipients, index + 1, current.recipients.length - index);
+            System.arraycopy(current.byRecipient, index, byRecipient, index + 1, current.recipients.length - index);
+        }
+        subscriptions.set(type.ordinal(), new Subscriptions(current.all, recipients, byRecipient));
+    }
+
+    /**
+     * Removes a receiver's subscription to every Event of a type.
+     * @param type The type of Event.
+     * @param receiver The receiver.
+     */
+    public synchronized void unsubscribe(EventType type, EventReceiver receiver) {
+        Subscriptions current = subscriptions.get(type.ordinal());
+        subscriptions.set(type.ordinal(),
+                new Subscriptions(remove(current.all, receiver), current.recipients, current.byRecipient));
+    }
+
+    /**
+     * Removes a receiver's subscription to the Events of a type meant for a particular Employee.
+     * @param type The type of Event.
+     * @param employeeId The id of the Employee.
+     * @param receiver The receiver.
+     */
+    public synchronized void unsubscribe(EventType type, long employeeId, EventReceiver receiver) {
+        Subscriptions current = subscriptions.get(type.ordinal());
+        int index = Arrays.binarySearch(current.recipients, employeeId);
+        if (index < 0) {
+            return;
+        }
+        EventReceiver[][] byRecipient = current.byRecipient.clone();
+        byRecipient[index] = remove(byRecipient[index], receiver);
+        subscriptions.set(type.ordinal(), new Subscriptions(current.all, current.recipients, byRecipient));
+    }
+
+    private static EventReceiver[] add(EventReceiver[] receivers, EventReceiver receiver) {
+        EventReceiver[] added = Arrays.copyOf(receivers, receivers.length + 1);
+        added[receivers.length] = receiver;
+        return added;
+    }
+
+    private static EventReceiver[] remove(EventReceiver[] receivers, EventReceiver receiver) {
+        for (int i = 0; i < receivers.length; i++) {
+            if (receivers[i].equals(receiver)) {
+                EventReceiver[] removed = new EventReceiver[receivers.length - 1];
+                System.arraycopy(receivers, 0, removed, 0, i);
+                System.arraycopy(receivers, i + 1, removed, i, receivers.length - i - 1);
+                return removed;
+            }
+        }
+        return receivers;
+    }
+
+    /**
+     * Passes an Event on to the receivers subscribed to its type, and, if it is meant for a particular Employee, to
+     * the receivers subscribed to that Employee's Events of its type.
+     * @param event The Event.
+     */
+    @Override
+    public void handleEvent(Event event) {
+        Subscriptions current = subscriptions.get(event.getEventType().ordinal());
+        for (EventReceiver receiver : current.all) {
+            receiver.handleEvent(event);
+        }
+        if (event.getRecipient() == Event.EVERYONE) {
+            return;
+        }
+        int index = Arrays.binarySearch(current.recipients, event.getRecipient());
+        if (index >= 0) {
+            for (EventReceiver receiver : current.byRecipient[index]) {
+                receiver.handleEvent(event);
+            }
+        }
+    }
+}
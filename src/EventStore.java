@@ -0,0 +1,741 @@
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The EventStore keeps the Restaurant's Orders, the Chefs' queues and the tables' Bills across restarts. Every Event
+ * the Restaurant handles, and every line paid or voided on a Bill, is appended to a binary event log. On startup the
+ * OrderBook, the KitchenScheduler and the FloorPlan are rebuilt by loading the latest snapshot and replaying the log
+ * written after it. The stock is not part of the event log, since the Inventory already keeps its own journal.
+ *
+ * Records are tagged with a sequence number and first appended to an in-memory buffer, which a background thread
+ * writes out and forces to disk every FLUSH_INTERVAL_MS, or sooner once GROUP_SIZE bytes are waiting. The buffer is
+ * swapped for an empty one before it is written, so appending never waits for the disk. Appending returns before the
+ * record is on disk, so a crash can lose about the last FLUSH_INTERVAL_MS of records. Once
+ * SNAPSHOT_INTERVAL records have been appended, the Orders that are still in use are written to a new snapshot and
+ * the log is started over, so Orders that have been paid for and whose tables are closed are dropped.
+ *
+ * Names and MenuItems are written out in full the first time they appear in a file, and by number after that, so
+ * most records are a few fixed-size fields. Files are read back into memory in one go and decoded from there, rather
+ * than a few bytes at a time through a stream. The log is started over at every snapshot, so it stays small enough
+ * for that.
+ */
+public class EventStore {
+
+    // The types of records in the log.
+    final static byte ORDER = 1;
+    final static byte REMOVE_ORDER = 2;
+    final static byte ORDER_READY = 3;
+    final static byte UNABLE_TO_COMPLETE = 4;
+    final static byte SERVE = 5;
+    final static byte RETURN_ORDER = 6;
+    final static byte PAY_LINE = 7;
+    final static byte VOID_LINE = 8;
+
+    // How far each line of a saved Order has been settled.
+    final private static byte LINE_UNPAID = 0;
+    final private static byte LINE_PAID = 1;
+    final private static byte LINE_VOIDED = 2;
+
+    // The file that the event log is kept in.
+    final private static String LOG_FILE = "Events.log";
+    // The file that the snapshot is kept in, and the file a new snapshot is written to before it replaces the old one.
+    final private static String SNAPSHOT_FILE = "Events.dat";
+    final private static String NEW_SNAPSHOT_FILE = "Events.dat.new";
+    // How long records may wait in memory before being forced to disk.
+    final private static long FLUSH_INTERVAL_MS = 5;
+    // The number of waiting bytes that triggers a flush without waiting for the interval.
+    final private static int GROUP_SIZE = 64 * 1024;
+    // The number of records after which a new snapshot should be written.
+    final private static int SNAPSHOT_INTERVAL = 100000;
+
+    /**
+     * A buffer whose contents can be swapped with another's, so records can go on being appended to the same stream
+     * while the ones already appended are written out.
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+        private void swap(Buffer other) {
+            byte[] otherBuf = other.buf;
+            int otherCount = other.count;
+            other.buf = this.buf;
+            other.count = this.count;
+            this.buf = otherBuf;
+            this.count = otherCount;
+        }
+    }
+
+    /**
+     * Writes Orders, names and MenuItems to one file, numbering each name and MenuItem the first time it is written.
+     */
+    private static class Encoder {
+        private final DataOutputStream data;
+        private final HashMap<String, Integer> names = new HashMap<>();
+        // MenuItems are shared by every line ordered from the same version of the Menu, so they are told apart by
+        // identity.
+        private final IdentityHashMap<MenuItem, Integer> items = new IdentityHashMap<>();
+
+        private Encoder(DataOutputStream data) {
+            this.data = data;
+            // Number 0 is always the empty name, which stands for no name.
+            names.put("", 0);
+        }
+
+        /**
+         * Writes the number of a name, followed by the name itself if this is the first time it is written. A first
+         * appearance is marked by writing the number's complement.
+         */
+        private void writeName(String name) throws IOException {
+            Integer number = names.get(name == null ? "" : name);
+            if (number != null) {
+                data.writeInt(number);
+                return;
+            }
+            number = names.size();
+            names.put(name, number);
+            data.writeInt(~number);
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+
+        /**
+         * Writes the number of a MenuItem, followed by its name, cost and recipe if this is the first time it is
+         * written.
+         */
+        private void writeItem(MenuItem item) throws IOException {
+            Integer number = items.get(item);
+            if (number != null) {
+                data.writeInt(number);
+                return;
+            }
+            number = items.size();
+            items.put(item, number);
+            data.writeInt(~number);
+            writeName(item.getName());
+            data.writeInt(item.getCost());
+            writeAmounts(item.getIngredientIds(), item.getQuantities());
+        }
+
+        /**
+         * Writes an Order with each of its lines.
+         */
+        private void writeOrder(Order order) throws IOException {
+            data.writeLong(order.getId());
+            data.writeInt(order.getTableNumber());
+            writeName(order.getServerName());
+            ArrayList<OrderLine> lines = order.getItems();
+            data.writeInt(lines.size());
+            for (OrderLine line : lines) {
+                data.writeLong(line.getId());
+                data.writeByte(line.isVoided() ? LINE_VOIDED : line.getPayed() ? LINE_PAID : LINE_UNPAID);
+                writeItem(line.getMenuItem());
+                writeAmounts(line.getDeltaIds(), line.getDeltaAmounts());
+            }
+        }
+
+        /**
+         * Writes parallel arrays of ingredient ids and amounts, or -1 if there are none.
+         */
+        private void writeAmounts(int[] ids, int[] amounts) throws IOException {
+            if (ids == null) {
+                data.writeInt(-1);
+                return;
+            }
+            data.writeInt(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                data.writeInt(ids[i]);
+                data.writeInt(amounts[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads back what an Encoder wrote to one file.
+     */
+    private class Decoder {
+        private final ByteBuffer buffer;
+        private final ArrayList<String> names = new ArrayList<>();
+        private final ArrayList<MenuItem> items = new ArrayList<>();
+
+        private Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+            names.add("");
+        }
+
+        private String readName() {
+            int number = buffer.getInt();
+            if (number < 0) {
+                number = ~number;
+                int length = buffer.getInt();
+                if (length > buffer.remaining()) {
+                    throw new BufferUnderflowException();
+                }
+                define(names, number, new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8));
+                buffer.position(buffer.position() + length);
+            }
+            String name = names.get(number);
+            return name.isEmpty() ? null : name;
+        }
+
+        private MenuItem readItem() {
+            int number = buffer.getInt();
+            if (number < 0) {
+                number = ~number;
+                String name = readName();
+                int cost = buffer.getInt();
+                int[][] recipe = readAmounts();
+                define(items, number, resolve(name, cost, recipe[0], recipe[1]));
+            }
+            return items.get(number);
+        }
+
+        private Order readOrder() {
+            long id = buffer.getLong();
+            int tableNum = buffer.getInt();
+            String serverName = readName();
+            Order order = new Order(id, tableNum, menu.getView());
+            if (serverName != null) {
+                order.setServerName(serverName);
+                Long serverId = serverIds.get(serverName);
+                if (serverId != null) {
+                    order.setServerId(serverId);
+                }
+            }
+            int lines = buffer.getInt();
+            for (int i = 0; i < lines; i++) {
+                long lineId = buffer.getLong();
+                byte settled = buffer.get();
+                MenuItem item = readItem();
+                int[][] changes = readAmounts();
+                order.restoreLine(new OrderLine(lineId, item, changes[0], changes[1],
+                        settled == LINE_PAID, settled == LINE_VOIDED));
+            }
+            return order;
+        }
+
+        /**
+         * Reads arrays written by writeAmounts.
+         * @return The ids and the amounts, which are both null if there were none.
+         */
+        private int[][] readAmounts() {
+            int count = buffer.getInt();
+            if (count < 0) {
+                return new int[2][];
+            }
+            int[] ids = new int[count];
+            int[] amounts = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = buffer.getInt();
+                amounts[i] = buffer.getInt();
+            }
+            return new int[][]{ids, amounts};
+        }
+    }
+
+    private File directory;
+    private FileOutputStream out;
+    private Menu menu;
+    private OrderBook orderBook;
+    private KitchenScheduler kitchen;
+    private FloorPlan floorPlan;
+    // Map from Server name to id. The log records Servers by name, so replayed Orders get their Server's id from here.
+    private HashMap<String, Long> serverIds = new HashMap<>();
+
+    // Records that have been appended but not yet written to the file.
+    private Buffer pending = new Buffer();
+    private DataOutputStream pendingData = new DataOutputStream(pending);
+    // Records being written to the file. Swapped with pending, so records can be appended while these are written.
+    private Buffer writing = new Buffer();
+    // Held while records are written to the file and forced to disk, and while the log is started over, so records
+    // reach the file in order and never land in a log started after them. Taken before this store's lock, never
+    // while holding it.
+    private final Object writeLock = new Object();
+    // Writes records into pending. Replaced whenever the log is started over.
+    private Encoder encoder = new Encoder(pendingData);
+
+    // The sequence number of the last record appended.
+    private long lastSequence;
+    // The number of records appended since the last snapshot.
+    private int sinceSnapshot = 0;
+    // The length of the log up to the end of the last complete record found by replay.
+    private long replayedLength = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates an EventStore for the Restaurant kept in the specified directory. Nothing is read or written until
+     * recover() is called.
+     * @param directory The Restaurant's directory.
+     * @param menu The Menu that the MenuItems of replayed Orders are looked up in.
+     * @param employees The Employees, whose ids replayed Orders are given.
+     * @param orderBook The OrderBook to rebuild.
+     * @param kitchen The KitchenScheduler to rebuild.
+     * @param floorPlan The FloorPlan whose Bills are rebuilt.
+     */
+    public EventStore(File directory, Menu menu, List<Employee> employees, OrderBook orderBook,
+                      KitchenScheduler kitchen, FloorPlan floorPlan) {
+        this.directory = directory;
+        this.menu = menu;
+        this.orderBook = orderBook;
+        this.kitchen = kitchen;
+        this.floorPlan = floorPlan;
+        for (Employee employee : employees) {
+            if (employee instanceof Server) {
+                serverIds.put(employee.getName(), employee.getId());
+            }
+        }
+    }
+
+    /**
+     * Loads the latest snapshot, replays every Event logged after it, and opens the log for new records. The
+     * recovered state is then written to a new snapshot straight away, so the next startup does not replay the same
+     * records again.
+     * @param apply Applies a replayed Event to the Restaurant's records, the same way it was applied when it was
+     *              first handled.
+     * @return The number of records replayed from the log.
+     */
+    public long recover(EventReceiver apply) {
+        long snapshotSequence = loadSnapshot(new File(directory, SNAPSHOT_FILE));
+        File log = new File(directory, LOG_FILE);
+        long replayed = replay(log, snapshotSequence, apply);
+        try {
+            // Cut off a record that was only partly written before a crash, or new records would follow it and be
+            // lost on the next startup.
+            if (log.length() > replayedLength) {
+                try (FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.WRITE)) {
+                    channel.truncate(replayedLength);
+                }
+            }
+            this.out = new FileOutputStream(log, true);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+        if (replayed > 0) {
+            snapshot();
+        }
+        Thread flusher = new Thread(this::flushLoop, "Event log");
+        flusher.setDaemon(true);
+        flusher.start();
+        return replayed;
+    }
+
+    /**
+     * Appends a record of an Event. Must be called in the order the Events are applied.
+     * @param event The Event.
+     * @return The sequence number of the record, or -1 if the Event is not about an Order.
+     */
+    public synchronized long append(Event event) {
+        Order order = event.getOrder();
+        if (order == null) {
+            return -1;
+        }
+        try {
+            switch (event.getEventType()) {
+                case ORDER:
+                    startRecord(ORDER);
+                    encoder.writeOrder(order);
+                    break;
+                case UNABLE_TO_COMPLETE:
+                    startRecord(UNABLE_TO_COMPLETE);
+                    encoder.writeOrder(order);
+                    break;
+                case REMOVE_ORDER:
+                    startRecord(REMOVE_ORDER);
+                    pendingData.writeLong(order.getId());
+                    encoder.writeName(event.getExp());
+                    break;
+                case ORDER_READY:
+                    startRecord(ORDER_READY);
+                    pendingData.writeLong(order.getId());
+                    encoder.writeName(event.getChef());
+                    break;
+                case SERVE:
+                    startRecord(SERVE);
+                    pendingData.writeLong(order.getId());
+                    break;
+                case RETURN_ORDER:
+                    startRecord(RETURN_ORDER);
+                    pendingData.writeLong(order.getId());
+                    break;
+                default:
+                    return -1;
+            }
+        } catch (IOException e) {
+            // Writing to a ByteArrayOutputStream can not fail.
+        }
+        return endRecord();
+    }
+
+    /**
+     * Appends a record of a line on a Bill being paid or voided. Must be called after the Bill has been changed,
+     * while still holding this store's lock, so that no snapshot is written in between.
+     * @param tableNum The table of the Bill.
+     * @param lineId The id of the line.
+     * @param voided True if the line was voided rather than paid.
+     * @return The sequence number of the record.
+     */
+    public synchronized long appendSettled(int tableNum, long lineId, boolean voided) {
+        try {
+            startRecord(voided ? VOID_LINE : PAY_LINE);
+            pendingData.writeInt(tableNum);
+            pendingData.writeLong(lineId);
+        } catch (IOException e) {
+            // Writing to a ByteArrayOutputStream can not fail.
+        }
+        return endRecord();
+    }
+
+    private void startRecord(byte type) throws IOException {
+        pendingData.writeLong(lastSequence + 1);
+        pendingData.writeByte(type);
+    }
+
+    private long endRecord() {
+        lastSequence++;
+        sinceSnapshot++;
+        if (pending.size() >= GROUP_SIZE) {
+            notifyAll();
+        }
+        return lastSequence;
+    }
+
+    /**
+     * Returns whether enough records have been appended since the last snapshot that a new one should be written.
+     * @return True if a snapshot is due.
+     */
+    public synchronized boolean isSnapshotDue() {
+        return sinceSnapshot >= SNAPSHOT_INTERVAL;
+    }
+
+    /**
+     * Writes the Orders that are still in use to a new snapshot, and starts the log over. An Order is still in use
+     * if it has not been paid for, returned or rejected, or if it is on the Bill of a table that is still open.
+     *
+     * Must be called on the thread that applies Events, so that no Event is applied while the snapshot is written.
+     * Lines paid or voided while it is written wait for it to finish, since the FloorPlan settles them while holding
+     * this store's lock.
+     */
+    public void snapshot() {
+        synchronized (writeLock) {
+            synchronized (this) {
+                writeSnapshot();
+            }
+        }
+    }
+
+    private void writeSnapshot() {
+        if (out == null) {
+            return;
+        }
+        File newSnapshot = new File(directory, NEW_SNAPSHOT_FILE);
+        try {
+            flush();
+            // Orders on open Bills first, then the others that are still being worked on.
+            LinkedHashMap<Long, Order> orders = new LinkedHashMap<>();
+            List<Bill> bills = floorPlan.getBills();
+            for (Bill bill : bills) {
+                for (Order order : bill.getOrders()) {
+                    orders.put(order.getId(), order);
+                }
+            }
+            int onBills = orders.size();
+            // Rejected Orders are left out: their Servers were told when they were rejected.
+            for (OrderState state : new OrderState[]{OrderState.PLACED, OrderState.CLAIMED, OrderState.READY,
+                    OrderState.SERVED}) {
+                for (Order order : orderBook.getOrders(state)) {
+                    orders.putIfAbsent(order.getId(), order);
+                }
+            }
+
+            FileOutputStream file = new FileOutputStream(newSnapshot);
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(file));
+            Encoder snapshotEncoder = new Encoder(data);
+            data.writeLong(lastSequence);
+            data.writeInt(orders.size());
+            int index = 0;
+            for (Order order : orders.values()) {
+                OrderState state = orderBook.getState(order.getId());
+                data.writeByte(state == null ? -1 : state.ordinal());
+                snapshotEncoder.writeName(orderBook.getChef(order.getId()));
+                data.writeBoolean(index++ < onBills);
+                snapshotEncoder.writeOrder(order);
+            }
+            data.writeInt(bills.size());
+            for (Bill bill : bills) {
+                data.writeInt(bill.getTableNum());
+                data.writeInt(bill.getCost());
+                data.writeInt(bill.getPaidTotal());
+            }
+            data.flush();
+            file.getChannel().force(false);
+            data.close();
+            File snapshotFile = new File(directory, SNAPSHOT_FILE);
+            if (snapshotFile.exists() && !snapshotFile.delete() || !newSnapshot.renameTo(snapshotFile)) {
+                throw new IOException("Could not move " + newSnapshot + " to " + snapshotFile);
+            }
+
+            // Every record in the log is now part of the snapshot.
+            out.close();
+            out = new FileOutputStream(new File(directory, LOG_FILE));
+            encoder = new Encoder(pendingData);
+            sinceSnapshot = 0;
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes out every waiting record and closes the log.
+     */
+    public void close() {
+        synchronized (writeLock) {
+            try {
+                flush();
+                if (out != null) {
+                    out.close();
+                }
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+            synchronized (this) {
+                closed = true;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes every waiting record to the file and forces it to disk. The waiting records are swapped out while
+     * holding this store's lock, and written without it, so appending does not wait for the disk. Must not be called
+     * while holding this store's lock unless writeLock is already held.
+     * @throws IOException If the records could not be written. They are written again by the next flush.
+     */
+    private void flush() throws IOException {
+        synchronized (writeLock) {
+            synchronized (this) {
+                if (writing.size() == 0) {
+                    writing.swap(pending);
+                } else {
+                    // The last write failed, so add the new records after the ones still waiting to be written.
+                    pending.writeTo(writing);
+                    pending.reset();
+                }
+            }
+            if (writing.size() == 0 || out == null) {
+                return;
+            }
+            writing.writeTo(out);
+            out.getChannel().force(false);
+            writing.reset();
+        }
+    }
+
+    /**
+     * Run by the background thread: flushes waiting records as a group.
+     */
+    private void flushLoop() {
+        while (true) {
+            synchronized (this) {
+                try {
+                    wait(FLUSH_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            try {
+                flush();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads a whole file into memory. The file is not mapped, since it is replaced or started over while the
+     * Restaurant runs, which some systems do not allow for a mapped file.
+     */
+    private static ByteBuffer readFully(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full or the file ends.
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    /**
+     * Restores the Orders in the snapshot file to the OrderBook, the KitchenScheduler and the tables' Bills, and the
+     * totals of the Bills.
+     * @param file The snapshot file.
+     * @return The sequence number of the last record the snapshot includes, or 0 if there is no snapshot.
+     */
+    private long loadSnapshot(File file) {
+        if (!file.exists()) {
+            return 0;
+        }
+        try {
+            Decoder in = new Decoder(readFully(file));
+            long sequence = in.buffer.getLong();
+            int count = in.buffer.getInt();
+            OrderState[] states = OrderState.values();
+            for (int i = 0; i < count; i++) {
+                byte state = in.buffer.get();
+                String chef = in.readName();
+                boolean onBill = in.buffer.get() != 0;
+                Order order = in.readOrder();
+                if (state >= 0) {
+                    orderBook.restore(order, states[state], chef);
+                    if (states[state] == OrderState.PLACED || states[state] == OrderState.CLAIMED) {
+                        kitchen.handleEvent(orderEvent(EventType.ORDER, order));
+                        if (states[state] == OrderState.CLAIMED) {
+                            kitchen.claim(order.getId());
+                        }
+                    }
+                }
+                if (onBill) {
+                    floorPlan.addToBill(order);
+                } else {
+                    // Every Order is put on its table's Bill, so one that is not has had its table closed.
+                    orderBook.forget(order.getId());
+                }
+            }
+            int bills = in.buffer.getInt();
+            for (int i = 0; i < bills; i++) {
+                Bill bill = floorPlan.getBill(in.buffer.getInt());
+                int cost = in.buffer.getInt();
+                int paidTotal = in.buffer.getInt();
+                if (bill != null) {
+                    bill.restoreTotals(cost, paidTotal);
+                }
+            }
+            lastSequence = sequence;
+            return sequence;
+        } catch (IOException | BufferUnderflowException e) {
+            // A snapshot is only moved into place once it is complete, so it can not be cut off by a crash.
+            System.out.println("Could not load " + file + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Applies every record in the log with a sequence number after the given one. A record that was only partly
+     * written before a crash ends the replay, and replayedLength is set to where the last complete record ends.
+     * @param file The log file.
+     * @param afterSequence Records up to and including this sequence number are already part of the snapshot.
+     * @param apply Applies a replayed Event to the Restaurant's records.
+     * @return The number of records applied.
+     */
+    private long replay(File file, long afterSequence, EventReceiver apply) {
+        long replayed = 0;
+        if (!file.exists()) {
+            return replayed;
+        }
+        try {
+            Decoder in = new Decoder(readFully(file));
+            ByteBuffer buffer = in.buffer;
+            while (buffer.hasRemaining()) {
+                long sequence = buffer.getLong();
+                byte type = buffer.get();
+                boolean skip = sequence <= afterSequence;
+                Event event = null;
+                if (type == ORDER) {
+                    Order order = in.readOrder();
+                    Order known = orderBook.getOrder(order.getId());
+                    event = orderEvent(EventType.ORDER, known == null ? order : known);
+                } else if (type == UNABLE_TO_COMPLETE) {
+                    // The Order's Server was told when it was rejected, so it is not put back into the OrderBook.
+                    in.readOrder();
+                } else if (type == REMOVE_ORDER || type == ORDER_READY) {
+                    event = loggedEvent(type == ORDER_READY ? EventType.ORDER_READY : EventType.REMOVE_ORDER,
+                            buffer.getLong());
+                    String name = in.readName();
+                    if (event != null && type == ORDER_READY) {
+                        event.setChef(name);
+                    } else if (event != null) {
+                        event.setExp(name);
+                    }
+                } else if (type == SERVE || type == RETURN_ORDER) {
+                    event = loggedEvent(type == SERVE ? EventType.SERVE : EventType.RETURN_ORDER, buffer.getLong());
+                } else if (type == PAY_LINE || type == VOID_LINE) {
+                    int tableNum = buffer.getInt();
+                    long lineId = buffer.getLong();
+                    Bill bill = skip ? null : floorPlan.getBill(tableNum);
+                    if (bill != null && (type == PAY_LINE ? bill.pay(lineId) : bill.voidLine(lineId))) {
+                        floorPlan.closeTable(tableNum);
+                    }
+                } else {
+                    throw new IOException("Unknown record type " + type + " in " + file);
+                }
+                if (!skip) {
+                    if (event != null) {
+                        apply.handleEvent(event);
+                    }
+                    replayed++;
+                }
+                lastSequence = Math.max(lastSequence, sequence);
+                replayedLength = buffer.position();
+            }
+        } catch (BufferUnderflowException e) {
+            // Reached a record that was cut off by a crash.
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+        return replayed;
+    }
+
+    /**
+     * Creates an Event about an Order, the way it was sent.
+     */
+    private static Event orderEvent(EventType type, Order order) {
+        Event event = new Event(type);
+        event.addOrder(order);
+        event.setServer(order.getServerId(), order.getServerName());
+        return event;
+    }
+
+    /**
+     * Creates an Event about an Order that is already in the OrderBook.
+     * @return The Event, or null if the Order is not in the OrderBook because it was dropped by a snapshot.
+     */
+    private Event loggedEvent(EventType type, long orderId) {
+        Order order = orderBook.getOrder(orderId);
+        return order == null ? null : orderEvent(type, order);
+    }
+
+    /**
+     * Returns a MenuItem with the specified name, cost and recipe: the one on the Menu if it matches, or otherwise a
+     * new one.
+     */
+    private MenuItem resolve(String name, int cost, int[] ingredientIds, int[] quantities) {
+        MenuItem item = menu.getView().getMenuItem(name);
+        if (item != null && item.getCost() == cost && Arrays.equals(item.getIngredientIds(), ingredientIds)
+                && Arrays.equals(item.getQuantities(), quantities)) {
+            return item;
+        }
+        return new MenuItem(name, cost, ingredientIds, quantities);
+    }
+
+    /**
+     * Sets the entry of a list with the specified number, which a file may number again after the log is started
+     * over.
+     */
+    private static <T> void define(ArrayList<T> defined, int number, T value) {
+        while (defined.size() <= number) {
+            defined.add(null);
+        }
+        defined.set(number, value);
+    }
+}
@@ -0,0 +1,288 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The FloorPlan class represents the layout of the Restaurant: its sections, and the tables in each section. It also
+ * keeps the Bill of every table that currently has guests.
+ *
+ * The floor plan is read from 'floorplan.txt', where each line is "section, tables, seats". Tables is either a
+ * single table number or a range such as "100-2099", so large rooms take one line. Without the file, the Restaurant
+ * has DEFAULT_TABLES tables in one section.
+ *
+ * Bills are only created when a table's first Order arrives, and are kept in a map by table number, so a floor with
+ * thousands of tables only pays for the ones in use. When a table is closed, its Bill is kept and reused for the next
+ * table that opens.
+ */
+public class FloorPlan {
+    // The file that the floor plan is read from.
+    final private static String FLOOR_PLAN_FILE = "floorplan.txt";
+    // The tables of a Restaurant without a floor plan file.
+    final private static int DEFAULT_TABLES = 20;
+    final private static int DEFAULT_SEATS = 4;
+    final private static String DEFAULT_SECTION = "Dining Room";
+    // The most closed Bills that are kept for reuse.
+    final private static int MAX_SPARE_BILLS = 64;
+
+    // Map from table number to table.
+    private HashMap<Integer, Table> tables = new HashMap<>();
+    // Map from section name to the tables in it, in the order the sections appear in the file.
+    private LinkedHashMap<String, List<Table>> sections = new LinkedHashMap<>();
+    // Map from table number to the Bill of each table that has guests.
+    private ConcurrentHashMap<Integer, Bill> bills = new ConcurrentHashMap<>();
+    // Bills of closed tables that can be reused.
+    private ConcurrentLinkedQueue<Bill> spareBills = new ConcurrentLinkedQueue<>();
+    // The OrderBook that Bills mark Orders as paid in, and that Orders leave once their table is closed.
+    private OrderBook orderBook;
+    // Where paid and voided lines are recorded, or null if they are not.
+    private EventStore eventStore;
+
+    /**
+     * Loads the floor plan kept in the specified directory.
+     * @param directory The Restaurant's directory.
+     * @param orderBook The OrderBook that Bills mark Orders as paid in.
+     */
+    public FloorPlan(File directory, OrderBook orderBook) {
+        this.orderBook = orderBook;
+        File file = new File(directory, FLOOR_PLAN_FILE);
+        if (file.exists()) {
+            try {
+                for (Table[] range : CatalogLoader.load(file, FloorPlan::parseTables)) {
+                    for (Table table : range) {
+                        addTable(table);
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+                System.out.println("File I/O error!");
+            }
+        }
+        if (tables.isEmpty()) {
+            for (int id = 1; id <= DEFAULT_TABLES; id++) {
+                addTable(new Table(id, DEFAULT_SECTION, DEFAULT_SEATS));
+            }
+        }
+    }
+
+    /**
+     * Parses a line of 'floorplan.txt', of the form "section, tables, seats", where tables is a table number or a
+     * range of them such as "100-2099".
+     * @param line The line.
+     * @return The tables on the line.
+     * @throws IllegalArgumentException If the line is not valid.
+     */
+    private static Table[] parseTables(String line) {
+        String[] fields = line.split(",");
+        if (fields.length != 3 || fields[0].trim().isEmpty()) {
+            throw new IllegalArgumentException("expected a section, tables and seats");
+        }
+        String section = fields[0].trim();
+        String[] range = fields[1].split("-");
+        int first = CatalogLoader.parseNumber(range[0], "table number");
+        int last = range.length > 1 ? CatalogLoader.parseNumber(range[1], "table number") : first;
+        int seats = CatalogLoader.parseNumber(fields[2], "seats");
+        if (range.length > 2 || first < 1 || last < first) {
+            throw new IllegalArgumentException("tables \"" + fields[1].trim() + "\" are not a valid range");
+        }
+        Table[] parsed = new Table[last - first + 1];
+        for (int i = 0; i < parsed.length; i++) {
+            parsed[i] = new Table(first + i, section, seats);
+        }
+        return parsed;
+    }
+
+    private void addTable(Table table) {
+        if (tables.containsKey(table.getId())) {
+            System.out.println("Ignored duplicate table " + table.getId());
+            return;
+        }
+        tables.put(table.getId(), table);
+        List<Table> section = sections.get(table.getSection());
+        if (section == null) {
+            section = new ArrayList<>();
+            sections.put(table.getSection(), section);
+        }
+        section.add(table);
+    }
+
+    /**
+     * Returns whether there is a table with the specified number.
+     * @param tableNum The table number.
+     * @return True if the table exists.
+     */
+    public boolean isTable(int tableNum) {
+        return tables.containsKey(tableNum);
+    }
+
+    /**
+     * Returns the table with the specified number.
+     * @param tableNum The table number.
+     * @return The table, or null if there is no such table.
+     */
+    public Table getTable(int tableNum) {
+        return tables.get(tableNum);
+    }
+
+    /**
+     * Returns the number of tables in the Restaurant.
+     * @return The number of tables.
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    /**
+     * Returns the names of the sections, in the order they appear in the floor plan.
+     * @return The section names.
+     */
+    public List<String> getSections() {
+        return new ArrayList<>(sections.keySet());
+    }
+
+    /**
+     * Returns the tables in a section.
+     * @param section The name of the section.
+     * @return The tables, or an empty list if there is no such section.
+     */
+    public List<Table> getTables(String section) {
+        List<Table> inSection = sections.get(section);
+        return inSection == null ? Collections.emptyList() : Collections.unmodifiableList(inSection);
+    }
+
+    /**
+     * Adds an Order to the Bill of its table, opening the table if it has no Bill yet.
+     * @param order The Order.
+     * @return True if the Order was added, false if its table is not on the floor plan.
+     */
+    public boolean addToBill(Order order) {
+        int tableNum = order.getTableNumber();
+        if (!isTable(tableNum)) {
+            return false;
+        }
+        // Done inside compute, so the table can not be closed between finding its Bill and adding the Order.
+        bills.compute(tableNum, (table, bill) -> {
+            if (bill == null) {
+                bill = openBill(table);
+            }
+            bill.addToBill(order);
+            return bill;
+        });
+        return true;
+    }
+
+    private Bill openBill(int tableNum) {
+        Bill bill = spareBills.poll();
+        if (bill == null) {
+            return new Bill(tableNum, orderBook);
+        }
+        bill.reopen(tableNum);
+        return bill;
+    }
+
+    /**
+     * Returns the Bill of a table that has guests.
+     * @param tableNum The table number.
+     * @return The Bill, or null if the table has no Bill open.
+     */
+    public Bill getBill(int tableNum) {
+        return bills.get(tableNum);
+    }
+
+    /**
+     * Returns the Bills of every table that has guests.
+     * @return A copy of the list of Bills.
+     */
+    public List<Bill> getBills() {
+        return new ArrayList<>(bills.values());
+    }
+
+    /**
+     * Sets where paid and voided lines are recorded, so they are kept across restarts.
+     * @param eventStore The Restaurant's EventStore.
+     */
+    public void setEventStore(EventStore eventStore) {
+        this.eventStore = eventStore;
+    }
+
+    /**
+     * Marks an unpaid line on a table's Bill as paid.
+     * @param tableNum The table number.
+     * @param lineId The id of the line.
+     * @return True if the line was paid, false if it is not an unpaid line on the table's Bill.
+     */
+    public boolean pay(int tableNum, long lineId) {
+        return settle(tableNum, lineId, false);
+    }
+
+    /**
+     * Voids an unpaid line on a table's Bill.
+     * @param tableNum The table number.
+     * @param lineId The id of the line.
+     * @return True if the line was voided, false if it is not an unpaid line on the table's Bill.
+     */
+    public boolean voidLine(int tableNum, long lineId) {
+        return settle(tableNum, lineId, true);
+    }
+
+    private boolean settle(int tableNum, long lineId, boolean voided) {
+        Bill bill = bills.get(tableNum);
+        if (bill == null) {
+            return false;
+        }
+        if (eventStore == null) {
+            return voided ? bill.voidLine(lineId) : bill.pay(lineId);
+        }
+        // The Bill is changed and the change recorded while holding the store's lock, which a snapshot also holds.
+        // A snapshot then sees the line either unsettled and without a record, or settled and recorded before it.
+        synchronized (eventStore) {
+            if (!(voided ? bill.voidLine(lineId) : bill.pay(lineId))) {
+                return false;
+            }
+            eventStore.appendSettled(tableNum, lineId, voided);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of tables that have a Bill open.
+     * @return The number of open tables.
+     */
+    public int getOpenTables() {
+        return bills.size();
+    }
+
+    /**
+     * Closes a table once everything on its Bill has been paid, so the next guests get a new Bill. Orders on the Bill
+     * that have been paid for or returned are taken out of the OrderBook.
+     * @param tableNum The table number.
+     * @return True if the table was closed, false if it has no Bill open or its Bill still has unpaid lines.
+     */
+    public boolean closeTable(int tableNum) {
+        Bill[] closed = new Bill[1];
+        bills.computeIfPresent(tableNum, (table, bill) -> {
+            if (bill.getUnpaidCount() > 0) {
+                return bill;
+            }
+            closed[0] = bill;
+            return null;
+        });
+        if (closed[0] == null) {
+            return false;
+        }
+        if (orderBook != null) {
+            for (Order order : closed[0].getOrders()) {
+                orderBook.forget(order.getId());
+            }
+        }
+        if (spareBills.size() < MAX_SPARE_BILLS) {
+            spareBills.add(closed[0]);
+        }
+        return true;
+    }
+}
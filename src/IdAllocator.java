@@ -0,0 +1,143 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out ids that are unique across threads and across restarts.
+ *
+ * Each thread takes a block of BLOCK_SIZE ids at a time from a shared counter and then hands out ids from its own
+ * block without touching anything shared. A high-water mark is kept in a small file: no id at or above the mark is
+ * handed out until the mark has been moved up and forced to disk, and on startup the counter starts from the mark. Ids
+ * from blocks that were not used up before a restart are skipped, so ids are unique but may have gaps. On a clean
+ * shutdown saveAll() moves every mark back down to the first id not yet handed out, so only the rest of each thread's
+ * current block is skipped.
+ *
+ * There is one allocator per type of record, made with forType(). Their files are all kept in the ids directory of
+ * the directory the program runs in, next to the Commissary's, rather than in any branch's directory: every branch in
+ * the program shares the same allocators, so no two branches ever hand out the same id.
+ */
+public class IdAllocator {
+
+    // The number of ids each thread takes at a time.
+    final private static int BLOCK_SIZE = 64;
+    // The number of blocks the high-water mark is moved up by at a time, so the file is rarely written.
+    final private static int BLOCKS_PER_MARK = 16;
+    // The directory every allocator keeps its high-water mark file in.
+    final private static File DIRECTORY = new File("ids");
+    // Every allocator made by forType(), so they can all be saved on shutdown.
+    final private static ArrayList<IdAllocator> allocators = new ArrayList<>();
+
+    private File file;
+    // The first id of the next block to hand out.
+    private AtomicLong nextBlock;
+    // No id at or above this has been saved as used. Guarded by this allocator's lock.
+    private volatile long highWaterMark;
+
+    // The next id and the end of the current block of each thread.
+    private ThreadLocal<long[]> blocks = ThreadLocal.withInitial(() -> new long[2]);
+
+    /**
+     * Returns a new allocator for the specified type of record, which keeps its high-water mark in the ids directory.
+     * A mark file left in the working directory, where they used to be kept, is moved there first.
+     * @param type The name of the type, which names the file.
+     * @return The allocator.
+     */
+    public static IdAllocator forType(String type) {
+        File file = new File(DIRECTORY, type + ".ids");
+        File old = new File(type + ".ids");
+        if (!DIRECTORY.exists() && !DIRECTORY.mkdirs()) {
+            System.out.println("Could not create " + DIRECTORY);
+        }
+        if (!file.exists() && old.exists() && !old.renameTo(file)) {
+            file = old;
+        }
+        IdAllocator allocator = new IdAllocator(file);
+        synchronized (allocators) {
+            allocators.add(allocator);
+        }
+        return allocator;
+    }
+
+    /**
+     * Saves the first id not yet handed out by each allocator as its high-water mark, so the next startup carries on
+     * from there rather than skipping the ids reserved ahead. Only call this once nothing is handing out ids any more.
+     */
+    public static void saveAll() {
+        synchronized (allocators) {
+            for (IdAllocator allocator : allocators) {
+                allocator.save();
+            }
+        }
+    }
+
+    /**
+     * Creates an allocator that keeps its high-water mark in the specified file. Ids start from the mark in the file,
+     * or from 0 if there is no file yet.
+     * @param file The high-water mark file.
+     */
+    private IdAllocator(File file) {
+        this.file = file;
+        long mark = 0;
+        if (file.exists()) {
+            try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+                mark = in.readLong();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        this.nextBlock = new AtomicLong(mark);
+        this.highWaterMark = mark;
+    }
+
+    /**
+     * Returns a new id.
+     * @return The id.
+     */
+    public long nextId() {
+        long[] block = blocks.get();
+        if (block[0] == block[1]) {
+            long start = nextBlock.getAndAdd(BLOCK_SIZE);
+            if (start + BLOCK_SIZE > highWaterMark) {
+                raiseHighWaterMark(start + BLOCK_SIZE);
+            }
+            block[0] = start;
+            block[1] = start + BLOCK_SIZE;
+        }
+        return block[0]++;
+    }
+
+    /**
+     * Moves the high-water mark up so that it is at least the specified id, and saves it before returning.
+     * @param atLeast The id the mark must reach.
+     */
+    private synchronized void raiseHighWaterMark(long atLeast) {
+        if (atLeast <= highWaterMark) {
+            return;
+        }
+        writeHighWaterMark(atLeast + (long) BLOCK_SIZE * BLOCKS_PER_MARK);
+    }
+
+    /**
+     * Moves the high-water mark down to the first id not yet handed out. A thread that takes another block afterwards
+     * moves it up again before using it.
+     */
+    private synchronized void save() {
+        writeHighWaterMark(nextBlock.get());
+    }
+
+    /**
+     * Saves the specified high-water mark to the file and forces it to disk.
+     * @param mark The new mark.
+     */
+    private void writeHighWaterMark(long mark) {
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.writeLong(mark);
+            out.getChannel().force(true);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+        highWaterMark = mark;
+    }
+}
@@ -1,28 +1,40 @@
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class that represents an Ingredient in an Inventory. It stores the name of the ingredient, the amount currently
  * available, the threshold before a restock is needed, and the amount to request when it is below the threshold.
  */
 public class Ingredient implements Serializable{
+    // The number of hours that a restock request should last, at the rate this Ingredient is being used.
+    final private static double REQUEST_COVER_HOURS = 24;
+
+    // The id of this Ingredient in its Inventory, or -1 if it has not been added to one yet.
+    private int id = -1;
     private String name;
-    private int amount;
+    // Updated with compare-and-set so that concurrent Servers can never drive the amount below zero.
+    private final AtomicInteger amount;
 
     // The minimum amount of this Ingredient there can be before it has to be restocked.
     private int restockThreshold;
     // The amount of this Ingredient to request when restock is needed.
     private int requestAmount;
+    // How quickly this Ingredient is being used up.
+    private ConsumptionRate consumption = new ConsumptionRate();
+    // A copy of this Ingredient as of its last change, which InventoryViews are built from. Only set while holding the
+    // Ingredient's stripe lock in its Inventory.
+    private transient volatile IngredientState state;
 
     public Ingredient(String name, int amount, int restockThreshold, int requestAmount) {
         this.name = name;
-        this.amount = amount;
+        this.amount = new AtomicInteger(amount);
         this.restockThreshold = restockThreshold;
         this.requestAmount = requestAmount;
     }
 
     public Ingredient(String name, int amount) {
         this.name = name;
-        this.amount = amount;
+        this.amount = new AtomicInteger(amount);
         this.restockThreshold = 0;
         this.requestAmount = 0;
     }
@@ -32,7 +44,7 @@ public class Ingredient implements Serializable{
      * @param amount The amount to be added.
      */
     public void addStock(int amount){
-        this.amount += amount;
+        this.amount.addAndGet(amount);
     }
 
     /**
@@ -41,9 +53,13 @@ public class Ingredient implements Serializable{
      * @return False if there's not enough in stock, true otherwise.
      */
     public boolean removeStock(int amount) {
-        if(amount <= this.amount){
-            this.amount -= amount;
-            return true;
+        int current = this.amount.get();
+        while (amount <= current) {
+            if (this.amount.compareAndSet(current, current - amount)) {
+                this.consumption.record(amount, System.currentTimeMillis());
+                return true;
+            }
+            current = this.amount.get();
         }
         return false;
     }
@@ -52,8 +68,39 @@ public class Ingredient implements Serializable{
         return this.name;
     }
 
+    /**
+     * Returns the copy of this Ingredient taken at its last change in its Inventory.
+     * @return The state, or null if this Ingredient has not been added to an Inventory.
+     */
+    IngredientState getState() {
+        return state;
+    }
+
+    /**
+     * Takes a new copy of this Ingredient's values for InventoryViews. The caller must hold the Ingredient's stripe lock.
+     */
+    void updateState() {
+        this.state = new IngredientState(this);
+    }
+
+    /**
+     * Returns the id of this Ingredient in its Inventory. Ids are dense, starting from 0.
+     * @return The id, or -1 if this Ingredient has not been added to an Inventory.
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Sets the id of this Ingredient. Only the Inventory that this Ingredient is added to should call this.
+     * @param id The new id.
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+
     public int getAmount() {
-        return amount;
+        return amount.get();
     }
 
     public int getRestockThreshold(){
@@ -71,4 +118,30 @@ public class Ingredient implements Serializable{
     public void setRequestAmount(int requestAmount) {
         this.requestAmount = requestAmount;
     }
+
+    /**
+     * Returns the estimated number of hours until this Ingredient runs out, at the rate it is currently being used.
+     * @return The number of hours, or Double.POSITIVE_INFINITY if it is not being used.
+     */
+    public double getHoursToStockout() {
+        return this.consumption.getHoursToStockout(getAmount(), System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the amount of this Ingredient expected to be used over the next REQUEST_COVER_HOURS, at the rate it is
+     * currently being used.
+     * @return The suggested request amount, or 0 if it is not being used.
+     */
+    public int getSuggestedRequestAmount() {
+        return this.consumption.getExpectedUsage(REQUEST_COVER_HOURS, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the amount of this Ingredient to actually request: the request amount set by the Manager, or the
+     * suggested request amount if the Ingredient is being used up faster than that would cover.
+     * @return The amount to request.
+     */
+    public int getAmountToRequest() {
+        return Math.max(this.requestAmount, getSuggestedRequestAmount());
+    }
 }
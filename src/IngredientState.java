@@ -0,0 +1,52 @@
+/**
+ * An immutable copy of an Ingredient's values at one point in time. InventoryViews are made up of these, so that
+ * readers can look at the stock without it changing underneath them.
+ */
+public class IngredientState {
+    private final int id;
+    private final String name;
+    private final int amount;
+    private final int restockThreshold;
+    private final int requestAmount;
+
+    /**
+     * Copies the current values of an Ingredient. The caller must hold the Ingredient's stripe lock, so that the values
+     * are all from the same point in time.
+     * @param ingredient The Ingredient to copy.
+     */
+    IngredientState(Ingredient ingredient) {
+        this.id = ingredient.getId();
+        this.name = ingredient.getName();
+        this.amount = ingredient.getAmount();
+        this.restockThreshold = ingredient.getRestockThreshold();
+        this.requestAmount = ingredient.getRequestAmount();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public int getRestockThreshold() {
+        return restockThreshold;
+    }
+
+    public int getRequestAmount() {
+        return requestAmount;
+    }
+
+    /**
+     * Returns whether the Ingredient was at or below its restock threshold.
+     * @return True if the Ingredient was low on stock.
+     */
+    public boolean isLowStock() {
+        return amount <= restockThreshold;
+    }
+}
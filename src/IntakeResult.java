@@ -0,0 +1,13 @@
+/**
+ * The result of submitting one Order through an OrderIntake.
+ */
+public enum IntakeResult {
+    // The Ingredients were reserved and the Order was sent to the kitchen.
+    ACCEPTED,
+    // The Order is for a table that is not on the floor plan.
+    UNKNOWN_TABLE,
+    // The Order has no items.
+    EMPTY_ORDER,
+    // There were not enough Ingredients left to make the Order.
+    NOT_ENOUGH_STOCK,
+}
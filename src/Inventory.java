@@ -1,10 +1,32 @@
 import java.io.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * An Inventory to keep track of Ingredients in stock at a Restaurant.
+ *
+ * Every change to the Inventory is recorded in an InventoryJournal. Every so often, the Ingredients that changed are
+ * written in place to a memory-mapped StockSnapshot, and on startup the journal records written after the snapshot
+ * are replayed on top of it, so no changes are lost if the program stops unexpectedly.
+ *
+ * Readers that only need to look at the stock, such as the GUI, should take an InventoryView with getView(). Views are
+ * immutable and never show a half-made change. Changes only record the new state of each Ingredient they touch, and a
+ * view is built from those states when a reader asks for one, so keeping views up to date costs Orders nothing.
+ *
+ * Each Inventory keeps all of its files in its own directory, so several Inventories, such as those of different
+ * branches, can run side by side without sharing any state. A branch's Inventory can fall back on a shared Commissary
+ * when it runs short of something.
  */
 public class Inventory implements Serializable {
 
@@ -12,27 +34,239 @@ public class Inventory implements Serializable {
     final private static String INGREDIENTS_FILE = "ingredients.txt";
     // The requests file, used by the Manager to write emails.
     final private static String REQUESTS_FILE = "requests.txt";
+    // The file that the snapshot of the stock is kept in.
+    final private static String SNAPSHOT_FILE = "Inventory.dat";
+    // The journal file. When a snapshot is written, the journal is moved to a file with the sequence number of the
+    // snapshot appended to its name, which is deleted once the snapshot has been saved.
+    final private static String JOURNAL_FILE = "Inventory.journal";
 
-    private HashMap<String, Ingredient> stock = new HashMap<>();
-    private ArrayList<String> requests = new ArrayList<>();
+    // The number of locks that Ingredients are striped over. Reservations only lock the stripes they touch, so
+    // Servers ordering unrelated Ingredients do not wait on each other.
+    final private static int NUM_STRIPES = 64;
+    // The number of times getView() tries to copy the stock between changes before locking every stripe instead.
+    final private static int VIEW_ATTEMPTS = 8;
+
+    private ConcurrentHashMap<String, Ingredient> stock = new ConcurrentHashMap<>();
+    // Every Ingredient in this Inventory, indexed by its id. Only the first registrySize entries are in use. The array
+    // is replaced by a larger copy when it fills up, so readers never need a lock.
+    private volatile Ingredient[] registry = new Ingredient[16];
+    private volatile int registrySize = 0;
+    // The names of the Ingredients that have been requested and not restocked since, so each is requested only once.
+    private Set<String> requests = ConcurrentHashMap.newKeySet();
+    // The Ingredients at or below their restock threshold. An Ingredient is only added or removed while holding its
+    // stripe lock, right after its amount or threshold changes, so the set never needs a full scan to stay current.
+    private transient Set<Ingredient> lowStock = ConcurrentHashMap.newKeySet();
+    // Told whenever an Ingredient enters or leaves lowStock.
+    private transient List<StockListener> stockListeners = new CopyOnWriteArrayList<>();
+    // Counted up by every change just before it updates the states of its Ingredients, and again just after. While the
+    // two are equal no change is half done, so states copied then make up a consistent view.
+    private transient AtomicLong changesStarted = new AtomicLong();
+    private transient AtomicLong changesFinished = new AtomicLong();
+    // The last view built by getView(), reused until something changes.
+    private transient volatile InventoryView view = new InventoryView(0, new IngredientState[0], stock);
+    // The directory that this Inventory's files are kept in.
+    private transient File directory;
+    // Writes requests to the requests file in the background.
+    private transient RequestWriter requestWriter;
+    private transient ReentrantLock[] stripes = newStripes();
+    // The ids of the Ingredients changed since the last snapshot. Each BitSet is guarded by the stripe lock with the
+    // same index.
+    private transient BitSet[] dirty = newDirtySets();
+
+    // Records every change to this Inventory. Null while the Inventory is being built or replayed.
+    private transient InventoryJournal journal;
+    // The snapshot that changed Ingredients are written to.
+    private transient StockSnapshot snapshot;
+    // Where to get Ingredients from when there is not enough in stock to reserve an Order, or null if there is nowhere.
+    private transient Commissary commissary;
 
     public Inventory() {
+        this(new File("."));
+    }
+
+    /**
+     * Creates an Inventory from the 'ingredients.txt' file in the specified directory, and keeps its files there.
+     * @param directory The directory of the Inventory.
+     */
+    public Inventory(File directory) {
+        this.directory = directory;
+        this.requestWriter = new RequestWriter(new File(directory, REQUESTS_FILE).getPath());
         initializeInventory();
     }
 
     /**
-     * Initializes this Inventory based off the ingredients in 'ingredients.txt'
+     * Creates an Inventory holding the Ingredients saved in a snapshot.
+     * @param directory The directory of the Inventory.
+     * @param snapshot The snapshot to read.
+     */
+    private Inventory(File directory, StockSnapshot snapshot) {
+        this.directory = directory;
+        this.requestWriter = new RequestWriter(new File(directory, REQUESTS_FILE).getPath());
+        String[] names = snapshot.readNames();
+        for (int id = 0; id < names.length; id++) {
+            addNewIngredient(new Ingredient(names[id], snapshot.getAmount(id), snapshot.getRestockThreshold(id),
+                    snapshot.getRequestAmount(id)));
+            if (snapshot.isRequested(id)) {
+                requests.add(names[id]);
+            }
+        }
+        // Everything read so far is already in the snapshot.
+        for (BitSet changed : dirty) {
+            changed.clear();
+        }
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Recovers the Inventory kept in the working directory.
+     * @return The recovered Inventory, with its journal open for new changes.
+     */
+    public static Inventory recover() {
+        return recover(new File("."));
+    }
+
+    /**
+     * Loads the snapshot of the Inventory and replays every journal record written after it. If there is no
+     * snapshot, the Inventory is built from 'ingredients.txt' and the whole journal is replayed.
+     * @param directory The directory that the Inventory's files are kept in.
+     * @return The recovered Inventory, with its journal open for new changes.
+     */
+    public static Inventory recover(File directory) {
+        Inventory inventory;
+        long snapshotSequence = 0;
+        long[] recordSequences = new long[0];
+        try {
+            StockSnapshot snapshot = StockSnapshot.open(new File(directory, SNAPSHOT_FILE));
+            inventory = new Inventory(directory, snapshot);
+            snapshotSequence = snapshot.getJournalSequence();
+            recordSequences = new long[snapshot.size()];
+            for (int id = 0; id < recordSequences.length; id++) {
+                recordSequences[id] = snapshot.getSequence(id);
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+            inventory = new Inventory(directory);
+        }
+
+        long lastSequence = snapshotSequence;
+        for (File segment : inventory.journalSegments().values()) {
+            lastSequence = Math.max(lastSequence,
+                    InventoryJournal.replay(segment, snapshotSequence, recordSequences, inventory));
+        }
+        lastSequence = Math.max(lastSequence,
+                InventoryJournal.replay(new File(directory, JOURNAL_FILE), snapshotSequence, recordSequences,
+                        inventory));
+        if (lastSequence > snapshotSequence) {
+            // Save whatever the replay changed with the snapshot, since its journal files will then be deleted.
+            for (int id = 0; id < inventory.size(); id++) {
+                inventory.dirty[stripeOf(id)].set(id);
+            }
+            // The replay changes Ingredients directly, so work out which are low again and publish them.
+            inventory.rebuildIndexes();
+        }
+
+        try {
+            if (inventory.snapshot == null) {
+                inventory.snapshot = StockSnapshot.create(new File(directory, SNAPSHOT_FILE), inventory.size());
+            }
+            inventory.journal = new InventoryJournal(new File(directory, JOURNAL_FILE), lastSequence,
+                    inventory::checkpoint);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+        // Bring the snapshot up to date straight away, so the next startup does not have to replay this journal.
+        inventory.checkpoint();
+        return inventory;
+    }
+
+    /**
+     * Writes every Ingredient changed since the last snapshot to the snapshot, in place, and starts a new journal.
+     * Changes to the Inventory wait while the changed records are copied into the mapped file, but not while it is
+     * forced to disk.
+     */
+    public synchronized void checkpoint() {
+        if (journal == null || snapshot == null) {
+            return;
+        }
+        long sequence;
+        lockAllStripes();
+        try {
+            sequence = journal.getLastSequence();
+            BitSet changed = new BitSet();
+            for (BitSet stripeChanged : dirty) {
+                changed.or(stripeChanged);
+                stripeChanged.clear();
+            }
+            // Ids are written in ascending order, so new Ingredients are added to the snapshot's dictionary in order.
+            Ingredient[] ingredients = registry;
+            for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+                snapshot.write(ingredients[id], requests.contains(ingredients[id].getName()), sequence);
+            }
+            journal.roll(new File(directory, JOURNAL_FILE + "." + sequence));
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+            return;
+        } finally {
+            unlockAllStripes();
+        }
+
+        // The records must be on disk before the header says they include everything up to this sequence number.
+        snapshot.force();
+        snapshot.setJournalSequence(sequence);
+        snapshot.force();
+        for (Map.Entry<Long, File> segment : journalSegments().entrySet()) {
+            if (segment.getKey() <= sequence) {
+                segment.getValue().delete();
+            }
+        }
+    }
+
+    /**
+     * Writes out any journal records and requests that have not been saved yet, and closes the journal.
+     */
+    public void close() {
+        if (journal != null) {
+            journal.close();
+        }
+        if (snapshot != null) {
+            snapshot.close();
+        }
+        requestWriter.close();
+    }
+
+    /**
+     * Returns the journal files that were moved aside by a snapshot, sorted by the sequence number in their name.
+     * @return Map from sequence number to the journal file.
+     */
+    private TreeMap<Long, File> journalSegments() {
+        TreeMap<Long, File> segments = new TreeMap<>();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(JOURNAL_FILE + ".")) {
+                    try {
+                        segments.put(Long.parseLong(name.substring(JOURNAL_FILE.length() + 1)), file);
+                    } catch (NumberFormatException e) {
+                        // Not a journal segment.
+                    }
+                }
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Initializes this Inventory based off the ingredients in 'ingredients.txt' in its directory. The file is parsed in
+     * parallel, and the Ingredients are then added in file order, so they get the same ids every time.
      */
     private void initializeInventory(){
-        try (BufferedReader reader = new BufferedReader(new FileReader(new File(INGREDIENTS_FILE)))) {
-            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                String[] lines = line.split(",");
-                String ingredientName = lines[0].trim();
-                Integer quantity = Integer.parseInt(lines[1].trim());
-                Integer threshold = Integer.parseInt(lines[2].trim());
-                Integer requestAmount = Integer.parseInt(lines[3].trim());
-                Ingredient ingredient = new Ingredient(ingredientName, quantity, threshold, requestAmount);
-                stock.put(ingredientName, ingredient);
+        try {
+            for (Ingredient ingredient : CatalogLoader.load(new File(directory, INGREDIENTS_FILE),
+                    Inventory::parseIngredient)) {
+                if (!addNewIngredient(ingredient)) {
+                    System.out.println("Ignored duplicate ingredient " + ingredient.getName());
+                }
             }
         } catch (IOException e) {
             System.out.println(e.getMessage());
@@ -40,12 +274,90 @@ public class Inventory implements Serializable {
         }
     }
 
+    /**
+     * Parses a line of 'ingredients.txt', of the form "name, amount, threshold, request amount". The name is
+     * everything before the last three fields, so it may contain spaces or commas.
+     * @param line The line.
+     * @return The Ingredient.
+     * @throws IllegalArgumentException If the line is not valid.
+     */
+    private static Ingredient parseIngredient(String line) {
+        int requestSplit = line.lastIndexOf(',');
+        int thresholdSplit = line.lastIndexOf(',', requestSplit - 1);
+        int amountSplit = thresholdSplit < 0 ? -1 : line.lastIndexOf(',', thresholdSplit - 1);
+        if (amountSplit <= 0) {
+            throw new IllegalArgumentException("expected a name, amount, threshold and request amount");
+        }
+        return new Ingredient(line.substring(0, amountSplit).trim(),
+                CatalogLoader.parseNumber(line.substring(amountSplit + 1, thresholdSplit), "amount"),
+                CatalogLoader.parseNumber(line.substring(thresholdSplit + 1, requestSplit), "threshold"),
+                CatalogLoader.parseNumber(line.substring(requestSplit + 1), "request amount"));
+    }
+
     /**
      * Add the the specified amount of ingredient to the stock.
      */
     public void addIngredient(String ingredient, int quantity) {
-        stock.get(ingredient).addStock(quantity);
+        Ingredient added = stock.get(ingredient);
+        ReentrantLock stripe = stripes[stripeOf(added.getId())];
+        boolean crossed;
+        stripe.lock();
+        try {
+            added.addStock(quantity);
+            markDirty(added.getId());
+            crossed = updateLowStock(added);
+            publish(added);
+            if (journal != null) {
+                journal.append(InventoryJournal.ADD, added.getId(), quantity);
+            }
+        } finally {
+            stripe.unlock();
+        }
         requests.remove(ingredient);
+        notifyStockListeners(added, crossed);
+    }
+
+    /**
+     * Adds a new Ingredient to this Inventory and gives it the next free id. Does nothing if an Ingredient with the same
+     * name already exists.
+     * @param ingredient The Ingredient to add.
+     * @return True if the Ingredient was added, false if one with the same name already exists.
+     */
+    public synchronized boolean addNewIngredient(Ingredient ingredient) {
+        if (stock.containsKey(ingredient.getName())) {
+            return false;
+        }
+        int id = registrySize;
+        Ingredient[] ingredients = registry;
+        if (id == ingredients.length) {
+            ingredients = Arrays.copyOf(ingredients, ingredients.length * 2);
+        }
+        ingredient.setId(id);
+        ingredients[id] = ingredient;
+        stock.put(ingredient.getName(), ingredient);
+        // The new Ingredient joins the registry after its state is set, so the whole addition counts as one change and
+        // no view is built from a registry that does not match the states.
+        changesStarted.incrementAndGet();
+        try {
+            ReentrantLock stripe = stripes[stripeOf(id)];
+            stripe.lock();
+            try {
+                markDirty(id);
+                updateLowStock(ingredient);
+                publish(ingredient);
+                if (journal != null) {
+                    journal.appendNewIngredient(ingredient);
+                }
+            } finally {
+                stripe.unlock();
+            }
+            // Publish the array before the size, so that a reader who sees the new size also sees the Ingredient.
+            registry = ingredients;
+            registrySize = id + 1;
+        } finally {
+            changesFinished.incrementAndGet();
+        }
+        return true;
     }
 
     /**
@@ -53,12 +365,536 @@ public class Inventory implements Serializable {
      */
     public void removeIngredient(String ingredientName, int quantity) {
         Ingredient ingredient = stock.get(ingredientName);
-        if(!ingredient.removeStock(quantity)){
-            System.out.println("Not enough " + ingredientName + " in stock!");
+        ReentrantLock stripe = stripes[stripeOf(ingredient.getId())];
+        boolean crossed = false;
+        stripe.lock();
+        try {
+            if (!ingredient.removeStock(quantity)) {
+                System.out.println("Not enough " + ingredientName + " in stock!");
+            } else {
+                markDirty(ingredient.getId());
+                crossed = updateLowStock(ingredient);
+                publish(ingredient);
+                if (journal != null) {
+                    journal.append(InventoryJournal.REMOVE, ingredient.getId(), quantity);
+                }
+            }
+        } finally {
+            stripe.unlock();
+        }
+        requestIfLow(ingredient);
+        notifyStockListeners(ingredient, crossed);
+    }
+
+    /**
+     * Atomically reserves every Ingredient needed to make the unpaid items of the given Order. Either all of the
+     * Ingredients are removed from the stock, or none are.
+     * @param order The Order to reserve Ingredients for.
+     * @return True if the Ingredients were reserved, false if there was not enough of at least one of them.
+     */
+    public boolean reserve(Order order) {
+        int[][] needs = getNeeds(order);
+        int[] ids = needs[0];
+        int[] amounts = needs[1];
+        int count = ids.length;
+        if (reserve(ids, amounts, count)) {
+            return true;
+        }
+        // Try to make up the difference from the Commissary, then try again.
+        return commissary != null && commissary.supply(this, getShortfall(ids, amounts, count))
+                && reserve(ids, amounts, count);
+    }
+
+    /**
+     * Works out the total amount of each Ingredient needed to make every unpaid item of an Order.
+     * @param order The Order.
+     * @return The ids of the Ingredients needed and the amount of each, as two parallel arrays.
+     */
+    private static int[][] getNeeds(Order order) {
+        // Merge the recipes of every item into one set of parallel arrays. Orders only use a handful of distinct
+        // Ingredients, so a linear search is cheaper than hashing.
+        int[] ids = new int[8];
+        int[] amounts = new int[8];
+        int count = 0;
+        for (OrderLine item : order.getUnpaidItems()) {
+            int[] itemIds = item.getIngredientIds();
+            int[] itemQuantities = item.getQuantities();
+            for (int i = 0; i < itemIds.length; i++) {
+                int index = 0;
+                while (index < count && ids[index] != itemIds[i]) {
+                    index++;
+                }
+                if (index == count) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                        amounts = Arrays.copyOf(amounts, count * 2);
+                    }
+                    ids[count++] = itemIds[i];
+                }
+                amounts[index] += itemQuantities[i];
+            }
+        }
+        return new int[][] {Arrays.copyOf(ids, count), Arrays.copyOf(amounts, count)};
+    }
+
+    /**
+     * Reserves the Ingredients for a batch of Orders in one pass. Orders are taken in the order given, and each is
+     * reserved in full if there is enough left after the ones before it, or not at all otherwise.
+     *
+     * Every stripe the batch touches is locked once, and everything reserved is written to the journal as a single
+     * record, so a batch of hundreds of Orders costs about as much locking as a single Order. Orders that could not be
+     * reserved from this Inventory alone are retried one at a time with the Commissary afterwards.
+     * @param orders The Orders.
+     * @return Whether each Order was reserved, in the same order as the Orders.
+     */
+    public boolean[] reserveAll(List<Order> orders) {
+        Ingredient[] ingredients = registry;
+        boolean[] reserved = new boolean[orders.size()];
+        int[][][] needs = new int[orders.size()][][];
+        boolean[] held = new boolean[NUM_STRIPES];
+        for (int o = 0; o < needs.length; o++) {
+            needs[o] = getNeeds(orders.get(o));
+            for (int id : needs[o][0]) {
+                held[stripeOf(id)] = true;
+            }
+        }
+
+        // The total taken of each Ingredient, by id, and the ids taken from in the order they were first taken from.
+        int[] totals = new int[ingredients.length];
+        int[] touched = new int[ingredients.length];
+        int count = 0;
+        boolean[] crossed;
+        lockStripes(held);
+        try {
+            for (int o = 0; o < needs.length; o++) {
+                int[] ids = needs[o][0];
+                int[] amounts = needs[o][1];
+                boolean enough = true;
+                for (int i = 0; i < ids.length && enough; i++) {
+                    enough = ingredients[ids[i]].getAmount() >= amounts[i];
+                }
+                if (!enough) {
+                    continue;
+                }
+                for (int i = 0; i < ids.length; i++) {
+                    ingredients[ids[i]].removeStock(amounts[i]);
+                    if (totals[ids[i]] == 0 && amounts[i] > 0) {
+                        touched[count++] = ids[i];
+                    }
+                    totals[ids[i]] += amounts[i];
+                }
+                reserved[o] = true;
+            }
+            int[] amounts = new int[count];
+            crossed = new boolean[count];
+            changesStarted.incrementAndGet();
+            for (int i = 0; i < count; i++) {
+                amounts[i] = totals[touched[i]];
+                markDirty(touched[i]);
+                crossed[i] = updateLowStock(ingredients[touched[i]]);
+                ingredients[touched[i]].updateState();
+            }
+            changesFinished.incrementAndGet();
+            if (count > 0) {
+                if (journal != null) {
+                    journal.appendReservation(touched, amounts, count);
+                }
+            }
+        } finally {
+            unlockStripes(held);
+        }
+        // Request restocks and notify listeners outside of the locks.
+        for (int i = 0; i < count; i++) {
+            requestIfLow(ingredients[touched[i]]);
+            notifyStockListeners(ingredients[touched[i]], crossed[i]);
+        }
+        if (commissary != null) {
+            for (int o = 0; o < reserved.length; o++) {
+                if (!reserved[o]) {
+                    reserved[o] = reserve(orders.get(o));
+                }
+            }
+        }
+        return reserved;
+    }
+
+    /**
+     * Atomically reserves the specified amounts of Ingredients, given by name.
+     * @param amounts Map from the name of each Ingredient to the amount to reserve.
+     * @return True if the Ingredients were reserved, false if one of them is not in this Inventory or there was not
+     *         enough of at least one of them.
+     */
+    public boolean reserve(Map<String, Integer> amounts) {
+        int[] ids = new int[amounts.size()];
+        int[] values = new int[amounts.size()];
+        int count = 0;
+        for (Map.Entry<String, Integer> entry : amounts.entrySet()) {
+            Ingredient ingredient = stock.get(entry.getKey());
+            if (ingredient == null) {
+                return false;
+            }
+            ids[count] = ingredient.getId();
+            values[count] = entry.getValue();
+            count++;
+        }
+        return reserve(ids, values, count);
+    }
+
+    /**
+     * Returns how much more of each Ingredient would be needed to reserve the specified amounts. The stock may change
+     * straight after, so this is only an estimate.
+     * @param ingredientIds The ids of the Ingredients.
+     * @param amounts The amount of each Ingredient needed.
+     * @param count The number of entries of the two arrays that are in use.
+     * @return Map from the name of each Ingredient that is short to the amount it is short by.
+     */
+    private Map<String, Integer> getShortfall(int[] ingredientIds, int[] amounts, int count) {
+        Map<String, Integer> shortfall = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            Ingredient ingredient = registry[ingredientIds[i]];
+            int missing = amounts[i] - ingredient.getAmount();
+            if (missing > 0) {
+                shortfall.put(ingredient.getName(), missing);
+            }
+        }
+        return shortfall;
+    }
+
+    /**
+     * Sets the Commissary to get Ingredients from when there is not enough in stock to reserve an Order.
+     * @param commissary The Commissary, or null to never fall back on one.
+     */
+    public void setCommissary(Commissary commissary) {
+        this.commissary = commissary;
+    }
+
+    /**
+     * Atomically reserves the specified amounts of Ingredients. Either all of the Ingredients are removed from the
+     * stock, or none are.
+     *
+     * Only the lock stripes covering the requested Ingredients are held, and they are always acquired in ascending
+     * order so that two concurrent reservations can never deadlock.
+     * @param ingredientIds The ids of the Ingredients to reserve. Each id must appear at most once.
+     * @param amounts The amount of each Ingredient to reserve, in the same order as ingredientIds.
+     * @param count The number of entries of the two arrays that are in use.
+     * @return True if the Ingredients were reserved, false if there was not enough of at least one of them.
+     */
+    public boolean reserve(int[] ingredientIds, int[] amounts, int count) {
+        Ingredient[] ingredients = registry;
+        boolean[] held = new boolean[NUM_STRIPES];
+        boolean[] crossed = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            held[stripeOf(ingredientIds[i])] = true;
+        }
+        lockStripes(held);
+        try {
+            // Ingredients are only ever removed while holding their stripe, so these amounts cannot drop before
+            // the removal below.
+            for (int i = 0; i < count; i++) {
+                if (ingredients[ingredientIds[i]].getAmount() < amounts[i]) {
+                    return false;
+                }
+            }
+            changesStarted.incrementAndGet();
+            for (int i = 0; i < count; i++) {
+                ingredients[ingredientIds[i]].removeStock(amounts[i]);
+                markDirty(ingredientIds[i]);
+                crossed[i] = updateLowStock(ingredients[ingredientIds[i]]);
+                ingredients[ingredientIds[i]].updateState();
+            }
+            changesFinished.incrementAndGet();
+            if (journal != null) {
+                journal.appendReservation(ingredientIds, amounts, count);
+            }
+        } finally {
+            unlockStripes(held);
+        }
+        // Request restocks and notify listeners outside of the locks.
+        for (int i = 0; i < count; i++) {
+            requestIfLow(ingredients[ingredientIds[i]]);
+            notifyStockListeners(ingredients[ingredientIds[i]], crossed[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Adds a whole delivery to the stock at once. Every stripe the delivery touches is locked together and the
+     * delivery is written to the journal as a single record, so a large delivery costs one round of locking rather
+     * than one per line. Requests for the delivered Ingredients are cleared.
+     * @param delivery Map from the name of each delivered Ingredient to the amount delivered.
+     * @return Map from the name of each delivered Ingredient to the result of receiving it, in the delivery's order.
+     */
+    public Map<String, DeliveryResult> receiveDelivery(Map<String, Integer> delivery) {
+        Map<String, DeliveryResult> results = new LinkedHashMap<>();
+        Ingredient[] delivered = new Ingredient[delivery.size()];
+        int[] ids = new int[delivery.size()];
+        int[] amounts = new int[delivery.size()];
+        int count = 0;
+        boolean[] held = new boolean[NUM_STRIPES];
+        for (Map.Entry<String, Integer> line : delivery.entrySet()) {
+            Ingredient ingredient = stock.get(line.getKey());
+            Integer quantity = line.getValue();
+            if (ingredient == null) {
+                results.put(line.getKey(), DeliveryResult.UNKNOWN_INGREDIENT);
+            } else if (quantity == null || quantity <= 0) {
+                results.put(line.getKey(), DeliveryResult.INVALID_QUANTITY);
+            } else {
+                results.put(line.getKey(), DeliveryResult.ADDED);
+                delivered[count] = ingredient;
+                ids[count] = ingredient.getId();
+                amounts[count] = quantity;
+                held[stripeOf(ingredient.getId())] = true;
+                count++;
+            }
+        }
+
+        boolean[] crossed = new boolean[count];
+        lockStripes(held);
+        try {
+            changesStarted.incrementAndGet();
+            for (int i = 0; i < count; i++) {
+                delivered[i].addStock(amounts[i]);
+                markDirty(ids[i]);
+                crossed[i] = updateLowStock(delivered[i]);
+                delivered[i].updateState();
+            }
+            changesFinished.incrementAndGet();
+            if (journal != null && count > 0) {
+                journal.appendDelivery(ids, amounts, count);
+            }
+        } finally {
+            unlockStripes(held);
+        }
+        for (int i = 0; i < count; i++) {
+            requests.remove(delivered[i].getName());
+            notifyStockListeners(delivered[i], crossed[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Requests a restock of the given Ingredient if it is at or below its restock threshold and has not already been
+     * requested.
+     * @param ingredient The Ingredient to check.
+     */
+    private void requestIfLow(Ingredient ingredient) {
+        // Only the caller that adds the Ingredient to the set goes on to request it.
+        if (ingredient.getAmount() <= ingredient.getRestockThreshold() && requests.add(ingredient.getName())) {
+            request(ingredient);
+        }
+    }
+
+    /**
+     * Adds the given Ingredient to, or removes it from, the set of Ingredients low on stock, based on its current amount
+     * and threshold. The caller must hold the Ingredient's stripe lock.
+     * @param ingredient The Ingredient that changed.
+     * @return True if the Ingredient just became low on stock or just stopped being low on stock.
+     */
+    private boolean updateLowStock(Ingredient ingredient) {
+        if (ingredient.getAmount() <= ingredient.getRestockThreshold()) {
+            return lowStock.add(ingredient);
+        } else {
+            return lowStock.remove(ingredient);
+        }
+    }
+
+    /**
+     * Works out the set of Ingredients low on stock and the state of every Ingredient from scratch. Only used after a
+     * journal replay or deserialization, which change Ingredients without going through this Inventory.
+     */
+    private void rebuildIndexes() {
+        lockAllStripes();
+        try {
+            lowStock.clear();
+            changesStarted.incrementAndGet();
+            for (int id = 0; id < registrySize; id++) {
+                updateLowStock(registry[id]);
+                registry[id].updateState();
+            }
+            changesFinished.incrementAndGet();
+        } finally {
+            unlockAllStripes();
+        }
+    }
+
+    /**
+     * Records the current state of the given Ingredient for views. The caller must hold the Ingredient's stripe lock.
+     * @param ingredient The Ingredient that changed.
+     */
+    private void publish(Ingredient ingredient) {
+        changesStarted.incrementAndGet();
+        ingredient.updateState();
+        changesFinished.incrementAndGet();
+    }
+
+    /**
+     * Returns a view of every Ingredient in this Inventory as of the latest change. The view is only built again if
+     * something has changed since the last call. It is copied without locking while no change is half done, and only
+     * if changes keep landing during the copy are the stripes locked to hold them off for one copy. The view will not
+     * change while it is being read.
+     * @return The view.
+     */
+    public InventoryView getView() {
+        for (int attempt = 0; attempt < VIEW_ATTEMPTS; attempt++) {
+            InventoryView current = view;
+            long finished = changesFinished.get();
+            if (current.getVersion() == finished) {
+                return current;
+            }
+            if (changesStarted.get() == finished) {
+                InventoryView built = buildView(finished);
+                // Nothing started while copying, so every state copied is from the same version.
+                if (changesStarted.get() == finished) {
+                    view = built;
+                    return built;
+                }
+            }
+            Thread.yield();
         }
-        if(ingredient.getAmount() <= ingredient.getRestockThreshold() && !requests.contains(ingredientName)){
-            request(ingredientName);
+        lockAllStripes();
+        try {
+            InventoryView built = buildView(changesFinished.get());
+            view = built;
+            return built;
+        } finally {
+            unlockAllStripes();
+        }
+    }
+
+    /**
+     * Copies the state of every Ingredient in the registry into a new view.
+     * @param version The version of the new view.
+     * @return The view.
+     */
+    private InventoryView buildView(long version) {
+        // Read the size before the array, which is always replaced first.
+        IngredientState[] states = new IngredientState[registrySize];
+        Ingredient[] ingredients = registry;
+        for (int id = 0; id < states.length; id++) {
+            states[id] = ingredients[id].getState();
         }
+        return new InventoryView(version, states, stock);
+    }
+
+    /**
+     * Tells every StockListener that the given Ingredient has changed, and whether it has crossed its restock
+     * threshold. Must be called without holding any stripe lock, since listeners may read this Inventory.
+     * @param ingredient The Ingredient that changed.
+     * @param crossed Whether the Ingredient crossed its threshold.
+     */
+    private void notifyStockListeners(Ingredient ingredient, boolean crossed) {
+        boolean low = crossed && lowStock.contains(ingredient);
+        for (StockListener listener : stockListeners) {
+            listener.stockChanged(ingredient);
+            if (!crossed) {
+                continue;
+            }
+            if (low) {
+                listener.lowStock(ingredient);
+            } else {
+                listener.restocked(ingredient);
+            }
+        }
+    }
+
+    /**
+     * Registers a StockListener to be told whenever an Ingredient changes or crosses its restock threshold.
+     * @param listener The StockListener.
+     */
+    public void addStockListener(StockListener listener) {
+        stockListeners.add(listener);
+    }
+
+    /**
+     * Stops telling a StockListener about Ingredients crossing their restock threshold.
+     * @param listener The StockListener.
+     */
+    public void removeStockListener(StockListener listener) {
+        stockListeners.remove(listener);
+    }
+
+    /**
+     * Returns the index of the lock stripe that guards the specified Ingredient.
+     * @param ingredientId The id of the Ingredient.
+     * @return The index of the stripe.
+     */
+    private static int stripeOf(int ingredientId) {
+        return ingredientId % NUM_STRIPES;
+    }
+
+    /**
+     * Records that the specified Ingredient has changed since the last snapshot. The caller must hold the Ingredient's
+     * stripe lock.
+     * @param ingredientId The id of the Ingredient.
+     */
+    private void markDirty(int ingredientId) {
+        dirty[stripeOf(ingredientId)].set(ingredientId);
+    }
+
+    /**
+     * Locks the marked stripes, in ascending order so that two callers can never deadlock.
+     * @param held Whether to lock each stripe, indexed by stripe.
+     */
+    private void lockStripes(boolean[] held) {
+        for (int stripe = 0; stripe < NUM_STRIPES; stripe++) {
+            if (held[stripe]) {
+                stripes[stripe].lock();
+            }
+        }
+    }
+
+    private void unlockStripes(boolean[] held) {
+        for (int stripe = NUM_STRIPES - 1; stripe >= 0; stripe--) {
+            if (held[stripe]) {
+                stripes[stripe].unlock();
+            }
+        }
+    }
+
+    private void lockAllStripes() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    private void unlockAllStripes() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    private static BitSet[] newDirtySets() {
+        BitSet[] sets = new BitSet[NUM_STRIPES];
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            sets[i] = new BitSet();
+        }
+        return sets;
+    }
+
+    private static ReentrantLock[] newStripes() {
+        ReentrantLock[] locks = new ReentrantLock[NUM_STRIPES];
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    /**
+     * Recreates the lock stripes, request writer, low stock set and view, which are not serialized, when this Inventory
+     * is read back in.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.stripes = newStripes();
+        this.dirty = newDirtySets();
+        this.directory = new File(".");
+        this.requestWriter = new RequestWriter(REQUESTS_FILE);
+        this.stockListeners = new CopyOnWriteArrayList<>();
+        this.lowStock = ConcurrentHashMap.newKeySet();
+        this.changesStarted = new AtomicLong();
+        this.changesFinished = new AtomicLong();
+        this.view = new InventoryView(0, new IngredientState[0], stock);
+        rebuildIndexes();
     }
 
     /**
@@ -67,24 +903,32 @@ public class Inventory implements Serializable {
      */
     public ArrayList<Ingredient> getStock() {
         ArrayList<Ingredient> ingredients = new ArrayList<>(this.stock.size());
-        // Iterate through the HashMap to get all of the values.
+        // Iterate through the map to get all of the values.
         for (Map.Entry<String, Ingredient> pair : this.stock.entrySet()) {
             ingredients.add(pair.getValue());
         }
         return ingredients;
     }
 
-    public HashMap<String, Ingredient> getIngredients() {
-        return stock;
-    }
-
     /**
      * Change the specified Ingredient's amount to request when ordering/restocking supplies.
      * @param ingredientName The name of the Ingredient to change the request amount.
      * @param newRequestAmount The new request amount.
      */
     public void changeRequestAmount(String ingredientName, int newRequestAmount) {
-        this.stock.get(ingredientName).setRequestAmount(newRequestAmount);
+        Ingredient ingredient = this.stock.get(ingredientName);
+        ReentrantLock stripe = stripes[stripeOf(ingredient.getId())];
+        stripe.lock();
+        try {
+            ingredient.setRequestAmount(newRequestAmount);
+            markDirty(ingredient.getId());
+            publish(ingredient);
+            if (journal != null) {
+                journal.append(InventoryJournal.REQUEST_AMOUNT, ingredient.getId(), newRequestAmount);
+            }
+        } finally {
+            stripe.unlock();
+        }
     }
 
     /**
@@ -94,20 +938,34 @@ public class Inventory implements Serializable {
      * @param newThreshold The new threshold before resupply is needed for the Ingredient.
      */
     public void changeRequestThreshold(String ingredientName, int newThreshold) {
-        this.stock.get(ingredientName).setRestockThreshold(newThreshold);
+        Ingredient ingredient = this.stock.get(ingredientName);
+        ReentrantLock stripe = stripes[stripeOf(ingredient.getId())];
+        stripe.lock();
+        boolean crossed;
+        try {
+            ingredient.setRestockThreshold(newThreshold);
+            markDirty(ingredient.getId());
+            crossed = updateLowStock(ingredient);
+            publish(ingredient);
+            if (journal != null) {
+                journal.append(InventoryJournal.THRESHOLD, ingredient.getId(), newThreshold);
+            }
+        } finally {
+            stripe.unlock();
+        }
+        requestIfLow(ingredient);
+        notifyStockListeners(ingredient, crossed);
     }
 
     /**
-     * Creates a request for the specified ingredient to be ordered.
+     * Creates a request for the specified ingredient to be ordered. The request is written to the requests file in the
+     * background.
      * @param ingredient The ingredient to be ordered.
      */
-    private void request(String ingredient) {
-        try(PrintWriter output = new PrintWriter(new FileWriter(REQUESTS_FILE, true))) {
-            output.append(String.format(ingredient + ", " + getIngredient(ingredient).getRequestAmount()));
-            output.close();
-            requests.add(ingredient);
-        } catch (IOException e) {
-            System.out.println(e.getMessage());
+    private void request(Ingredient ingredient) {
+        if (!requestWriter.submit(ingredient.getName() + ", " + ingredient.getAmountToRequest())) {
+            // The writer is backed up. Forget the request so that it is made again on the next removal.
+            requests.remove(ingredient.getName());
         }
     }
 
@@ -118,29 +976,61 @@ public class Inventory implements Serializable {
      */
     @Override
     public String toString() {
-        String representation = "\n --- INGREDIENTS CURRENTLY IN THE INVENTORY --- \n";
-        // Iterate through the HashMap to get all of the values.
-        for (Map.Entry<String, Ingredient> pair : this.stock.entrySet()) {
-            representation += pair.getKey();
-            representation += ": ";
-            representation += pair.getValue().getAmount();
-            representation += "\n";
+        StringBuilder representation = new StringBuilder("\n --- INGREDIENTS CURRENTLY IN THE INVENTORY --- \n");
+        for (IngredientState ingredient : getView().getIngredientStates()) {
+            representation.append(ingredient.getName()).append(": ").append(ingredient.getAmount()).append("\n");
         }
-        return representation;
+        return representation.toString();
     }
 
     public Ingredient getIngredient(String name){
         return stock.get(name);
     }
 
+    /**
+     * Returns the Ingredient with the specified id.
+     * @param id The id of the Ingredient.
+     * @return The Ingredient.
+     */
+    public Ingredient getIngredient(int id){
+        return registry[id];
+    }
+
+    /**
+     * Returns the number of Ingredients in this Inventory. Ingredient ids range from 0 to one less than this.
+     * @return The number of Ingredients.
+     */
+    public int size(){
+        return registrySize;
+    }
+
+    /**
+     * Returns the number of changes to the stock that have finished. Anything read from the stock after this is at
+     * least as new as every change counted.
+     * @return The number of changes.
+     */
+    public long getVersion() {
+        return changesFinished.get();
+    }
+
+    /**
+     * Returns the Ingredients that are at or below their restock threshold. The set is kept up to date as the stock
+     * changes, so this does not scan the Inventory.
+     * @return A read-only, live view of the Ingredients low on stock.
+     */
+    public Set<Ingredient> getLowStockIngredients() {
+        return Collections.unmodifiableSet(lowStock);
+    }
+
+    /**
+     * Returns the names of the Ingredients at or below their restock threshold, one per line.
+     * @return The names of the Ingredients low on stock.
+     */
     public String getLowStock(){
-        String str = "";
-        for (Ingredient i : getStock()){
-            if (i.getAmount() < i.getRestockThreshold()){
-                str += i.getName();
-                str += "\n";
-            }
+        StringBuilder str = new StringBuilder();
+        for (Ingredient i : lowStock){
+            str.append(i.getName()).append("\n");
         }
-        return str;
+        return str.toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,335 @@
+import java.io.*;
+
+/**
+ * An append-only journal of every change made to an Inventory. Each change is written as a small binary record tagged
+ * with a sequence number, so that after a crash the Inventory can be rebuilt from its latest snapshot plus the records
+ * written after it.
+ *
+ * Records are first appended to an in-memory buffer. A background thread writes the buffer out and forces it to disk
+ * every FLUSH_INTERVAL_MS, or sooner once GROUP_SIZE bytes are waiting, so that many changes share a single disk sync.
+ * The buffer is swapped for an empty one before it is written, so appending never waits for the disk.
+ *
+ * This is write-behind, not a commit: the append methods return before their record is on disk, so a crash can lose
+ * the changes made in roughly the last FLUSH_INTERVAL_MS, plus however long the last disk sync took.
+ */
+public class InventoryJournal {
+
+    // The types of records in the journal.
+    final static byte NEW_INGREDIENT = 1;
+    final static byte ADD = 2;
+    final static byte REMOVE = 3;
+    final static byte RESERVE = 4;
+    final static byte THRESHOLD = 5;
+    final static byte REQUEST_AMOUNT = 6;
+    final static byte DELIVERY = 7;
+
+    // How long records may wait in memory before being forced to disk.
+    final private static long FLUSH_INTERVAL_MS = 5;
+    // The number of waiting bytes that triggers a flush without waiting for the interval.
+    final private static int GROUP_SIZE = 64 * 1024;
+    // The number of records after which the Inventory should write a new snapshot.
+    final private static int SNAPSHOT_INTERVAL = 10000;
+
+    private File file;
+    private FileOutputStream out;
+
+    // Records that have been appended but not yet written to the file.
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private DataOutputStream pendingData = new DataOutputStream(pending);
+    // Records being written to the file. Swapped with pending, so records can be appended while these are written.
+    private ByteArrayOutputStream writing = new ByteArrayOutputStream();
+    private DataOutputStream writingData = new DataOutputStream(writing);
+    // Held while records are written to the file and forced to disk, so the buffers reach the file in the order they
+    // were filled. Taken before this journal's lock, never while holding it.
+    private final Object writeLock = new Object();
+
+    // The sequence number of the last record appended.
+    private long lastSequence;
+    // The number of records appended since the last snapshot.
+    private int sinceSnapshot = 0;
+    private boolean closed = false;
+
+    // Called on the flushing thread when it is time for the Inventory to write a new snapshot.
+    private Runnable snapshotTask;
+
+    /**
+     * Opens the journal for appending. Records already in the file are kept.
+     * @param file The journal file.
+     * @param lastSequence The sequence number of the last record already in the journal or its snapshot.
+     * @param snapshotTask Run whenever enough records have been appended that a new snapshot should be written.
+     * @throws IOException If the file can not be opened.
+     */
+    public InventoryJournal(File file, long lastSequence, Runnable snapshotTask) throws IOException {
+        this.file = file;
+        this.out = new FileOutputStream(file, true);
+        this.lastSequence = lastSequence;
+        this.snapshotTask = snapshotTask;
+
+        Thread flusher = new Thread(this::flushLoop, "Inventory journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Appends a record that changes a single value of a single Ingredient.
+     * @param type The type of the record: ADD, REMOVE, THRESHOLD or REQUEST_AMOUNT.
+     * @param ingredientId The id of the Ingredient.
+     * @param value The amount added or removed, or the new value.
+     * @return The sequence number of the record.
+     */
+    public synchronized long append(byte type, int ingredientId, int value) {
+        try {
+            startRecord(type);
+            pendingData.writeInt(ingredientId);
+            pendingData.writeInt(value);
+        } catch (IOException e) {
+            // Writing to a ByteArrayOutputStream can not fail.
+        }
+        return endRecord();
+    }
+
+    /**
+     * Appends a record of a successful reservation of several Ingredients at once.
+     * @param ingredientIds The ids of the reserved Ingredients.
+     * @param amounts The amount of each Ingredient reserved.
+     * @param count The number of entries of the two arrays that are in use.
+     * @return The sequence number of the record.
+     */
+    public synchronized long appendReservation(int[] ingredientIds, int[] amounts, int count) {
+        return appendAmounts(RESERVE, ingredientIds, amounts, count);
+    }
+
+    /**
+     * Appends a record of a whole delivery being added to the stock at once.
+     * @param ingredientIds The ids of the delivered Ingredients.
+     * @param amounts The amount of each Ingredient delivered.
+     * @param count The number of entries of the two arrays that are in use.
+     * @return The sequence number of the record.
+     */
+    public synchronized long appendDelivery(int[] ingredientIds, int[] amounts, int count) {
+        return appendAmounts(DELIVERY, ingredientIds, amounts, count);
+    }
+
+    private long appendAmounts(byte type, int[] ingredientIds, int[] amounts, int count) {
+        try {
+            startRecord(type);
+            pendingData.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                pendingData.writeInt(ingredientIds[i]);
+                pendingData.writeInt(amounts[i]);
+            }
+        } catch (IOException e) {
+            // Writing to a ByteArrayOutputStream can not fail.
+        }
+        return endRecord();
+    }
+
+    /**
+     * Appends a record of a new Ingredient being added to the Inventory.
+     * @param ingredient The new Ingredient.
+     * @return The sequence number of the record.
+     */
+    public synchronized long appendNewIngredient(Ingredient ingredient) {
+        try {
+            startRecord(NEW_INGREDIENT);
+            pendingData.writeUTF(ingredient.getName());
+            pendingData.writeInt(ingredient.getAmount());
+            pendingData.writeInt(ingredient.getRestockThreshold());
+            pendingData.writeInt(ingredient.getRequestAmount());
+        } catch (IOException e) {
+            // Writing to a ByteArrayOutputStream can not fail.
+        }
+        return endRecord();
+    }
+
+    private void startRecord(byte type) throws IOException {
+        pendingData.writeLong(lastSequence + 1);
+        pendingData.writeByte(type);
+    }
+
+    private long endRecord() {
+        lastSequence++;
+        sinceSnapshot++;
+        if (pending.size() >= GROUP_SIZE) {
+            notifyAll();
+        }
+        return lastSequence;
+    }
+
+    /**
+     * Returns the sequence number of the last record appended to this journal.
+     * @return The sequence number.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Writes out every waiting record and starts a new, empty journal file. The old records are moved to the
+     * specified file, which should be deleted once a snapshot covering them has been written.
+     *
+     * The caller must make sure that no records are appended while this runs.
+     * @param oldFile The file to move the old records to.
+     * @throws IOException If the journal could not be written or moved.
+     */
+    public void roll(File oldFile) throws IOException {
+        synchronized (writeLock) {
+            flush();
+            out.close();
+            if (!file.renameTo(oldFile)) {
+                throw new IOException("Could not move " + file + " to " + oldFile);
+            }
+            out = new FileOutputStream(file, true);
+            synchronized (this) {
+                sinceSnapshot = 0;
+            }
+        }
+    }
+
+    /**
+     * Writes out every waiting record and closes the journal.
+     */
+    public void close() {
+        synchronized (writeLock) {
+            try {
+                flush();
+                out.close();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+            synchronized (this) {
+                closed = true;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes every waiting record to the file and forces it to disk. The waiting records are swapped out while
+     * holding this journal's lock, and written without it, so appending does not wait for the disk.
+     * @throws IOException If the records could not be written. They are written again by the next flush.
+     */
+    private void flush() throws IOException {
+        synchronized (writeLock) {
+            synchronized (this) {
+                if (writing.size() == 0) {
+                    ByteArrayOutputStream filled = pending;
+                    DataOutputStream filledData = pendingData;
+                    pending = writing;
+                    pendingData = writingData;
+                    writing = filled;
+                    writingData = filledData;
+                } else {
+                    // The last write failed, so add the new records after the ones still waiting to be written.
+                    pending.writeTo(writing);
+                    pending.reset();
+                }
+            }
+            if (writing.size() == 0) {
+                return;
+            }
+            writing.writeTo(out);
+            out.getChannel().force(false);
+            writing.reset();
+        }
+    }
+
+    /**
+     * Run by the background thread: flushes waiting records as a group, and asks for a snapshot when enough records
+     * have built up.
+     */
+    private void flushLoop() {
+        while (true) {
+            synchronized (this) {
+                try {
+                    wait(FLUSH_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            try {
+                flush();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+            boolean snapshotDue;
+            synchronized (this) {
+                snapshotDue = sinceSnapshot >= SNAPSHOT_INTERVAL;
+            }
+            // The snapshot takes the Inventory's locks, so it must run without holding this journal's lock.
+            if (snapshotDue) {
+                snapshotTask.run();
+            }
+        }
+    }
+
+    /**
+     * Applies every record in the specified journal file with a sequence number after the given one to the Inventory.
+     * A record that was only partly written before a crash ends the replay.
+     * @param file The journal file to read.
+     * @param afterSequence Records up to and including this sequence number are already part of the Inventory.
+     * @param ingredientSequences For each Ingredient id, the sequence number that Ingredient is already up to date
+     *                            with, which may be later than afterSequence. Ids past the end use afterSequence.
+     * @param inventory The Inventory to apply the records to.
+     * @return The sequence number of the last record read, or afterSequence if there were none after it.
+     */
+    public static long replay(File file, long afterSequence, long[] ingredientSequences, Inventory inventory) {
+        long lastSequence = afterSequence;
+        if (!file.exists()) {
+            return lastSequence;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                long sequence = in.readLong();
+                byte type = in.readByte();
+                boolean apply = sequence > afterSequence;
+                if (type == NEW_INGREDIENT) {
+                    Ingredient ingredient = new Ingredient(in.readUTF(), in.readInt(), in.readInt(), in.readInt());
+                    if (apply) {
+                        inventory.addNewIngredient(ingredient);
+                    }
+                } else if (type == RESERVE || type == DELIVERY) {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        int id = in.readInt();
+                        int amount = in.readInt();
+                        if (apply && isNewer(sequence, id, ingredientSequences)) {
+                            inventory.getIngredient(id).addStock(type == DELIVERY ? amount : -amount);
+                        }
+                    }
+                } else {
+                    int id = in.readInt();
+                    int value = in.readInt();
+                    if (apply && isNewer(sequence, id, ingredientSequences)) {
+                        Ingredient ingredient = inventory.getIngredient(id);
+                        if (type == ADD) {
+                            ingredient.addStock(value);
+                        } else if (type == REMOVE) {
+                            ingredient.addStock(-value);
+                        } else if (type == THRESHOLD) {
+                            ingredient.setRestockThreshold(value);
+                        } else if (type == REQUEST_AMOUNT) {
+                            ingredient.setRequestAmount(value);
+                        }
+                    }
+                }
+                lastSequence = Math.max(lastSequence, sequence);
+            }
+        } catch (EOFException e) {
+            // Reached the end of the journal, or a record that was cut off by a crash.
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+        return lastSequence;
+    }
+
+    /**
+     * Returns whether a record is newer than what the specified Ingredient already includes.
+     */
+    private static boolean isNewer(long sequence, int ingredientId, long[] ingredientSequences) {
+        return ingredientId >= ingredientSequences.length || sequence > ingredientSequences[ingredientId];
+    }
+}
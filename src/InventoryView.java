@@ -0,0 +1,77 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable, versioned view of every Ingredient in an Inventory. A reader that takes a view sees one consistent
+ * version of the stock for as long as it holds on to it, without holding up Orders.
+ *
+ * Views are not published by changes. Each change only replaces the state of the Ingredients it touched, and the
+ * Inventory copies those states into a new view when a reader asks for one after something has changed.
+ */
+public class InventoryView {
+
+    private final long version;
+    private final IngredientState[] states;
+    // Map from Ingredient name to the live Ingredient, used only to find ids. Ingredients are never removed or renamed,
+    // so this is safe to share between versions.
+    private final Map<String, Ingredient> names;
+
+    /**
+     * Creates a view of the specified states.
+     * @param version The number of changes to the Inventory that the states include.
+     * @param states The state of every Ingredient, indexed by id. The view keeps the array, so it must not be changed.
+     * @param names The Inventory's map from name to Ingredient.
+     */
+    InventoryView(long version, IngredientState[] states, Map<String, Ingredient> names) {
+        this.version = version;
+        this.states = states;
+        this.names = names;
+    }
+
+    /**
+     * Returns the version of this view. Every change to the Inventory increases the version.
+     * @return The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of Ingredients in this view.
+     * @return The number of Ingredients.
+     */
+    public int size() {
+        return states.length;
+    }
+
+    /**
+     * Returns the state of the Ingredient with the specified id.
+     * @param id The id of the Ingredient.
+     * @return The state of the Ingredient in this version.
+     */
+    public IngredientState get(int id) {
+        return states[id];
+    }
+
+    /**
+     * Returns the state of the Ingredient with the specified name.
+     * @param name The name of the Ingredient.
+     * @return The state of the Ingredient in this version, or null if it is not in this version.
+     */
+    public IngredientState get(String name) {
+        Ingredient ingredient = names.get(name);
+        if (ingredient == null || ingredient.getId() < 0 || ingredient.getId() >= states.length) {
+            return null;
+        }
+        return get(ingredient.getId());
+    }
+
+    /**
+     * Returns the state of every Ingredient in this view, in id order.
+     * @return The states.
+     */
+    public ArrayList<IngredientState> getIngredientStates() {
+        return new ArrayList<>(Arrays.asList(states));
+    }
+}
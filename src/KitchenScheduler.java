@@ -0,0 +1,333 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.TreeSet;
+
+/**
+ * The KitchenScheduler decides which Chef works on each Order, instead of every Chef seeing every Order.
+ *
+ * Each Chef has their own queue of tickets. A new Order goes to the Chef that already has work for the same table, so
+ * a table's courses are made together, and otherwise to the Chef with the fewest tickets queued. Within a queue, the
+ * table whose first ticket is oldest comes first, and the tickets of one table are kept next to each other. When a
+ * Chef starts on the last ticket in their queue, or joins with nothing queued, they take the newest table from the
+ * Chef with the most tickets queued. Reading a queue never changes the schedule.
+ *
+ * The scheduler also keeps track of how many tickets are queued and how long tickets wait before a Chef starts on
+ * them.
+ */
+public class KitchenScheduler implements EventReceiver {
+
+    /**
+     * One Order waiting in a Chef's queue.
+     */
+    private static class Ticket {
+        private final Order order;
+        // When the ticket was created, in milliseconds.
+        private final long placedAt;
+        // Tickets are numbered in the order they arrive, so older tickets have smaller numbers.
+        private final long sequence;
+        // The number of the oldest ticket for the same table in the same queue. Tickets sort by this first, so a
+        // table's tickets stay together.
+        private long group;
+        private ChefQueue queue;
+
+        private Ticket(Order order, long placedAt, long sequence) {
+            this.order = order;
+            this.placedAt = placedAt;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * The tickets queued for one Chef.
+     */
+    private static class ChefQueue {
+        private final String chef;
+        private final TreeSet<Ticket> tickets = new TreeSet<>(PRIORITY);
+        // For each table, the tickets for that table in this queue.
+        private final HashMap<Integer, ArrayList<Ticket>> tables = new HashMap<>();
+
+        private ChefQueue(String chef) {
+            this.chef = chef;
+        }
+    }
+
+    /**
+     * Which Chef a table's Orders go to, while the table has Orders in the kitchen.
+     */
+    private static class TableAssignment {
+        private ChefQueue queue;
+        // The number of the table's Orders that have been scheduled but are not ready yet.
+        private int outstanding;
+    }
+
+    // Oldest table first, then oldest ticket within the table.
+    final private static Comparator<Ticket> PRIORITY =
+            Comparator.comparingLong((Ticket ticket) -> ticket.group).thenComparingLong(ticket -> ticket.sequence);
+
+    // Map from Chef name to their queue, in the order the Chefs were added.
+    private LinkedHashMap<String, ChefQueue> queues = new LinkedHashMap<>();
+    // Tickets that arrived while there were no Chefs. They go to the first Chef that is added.
+    private ChefQueue unassigned = new ChefQueue(null);
+    // Map from Order id to its ticket, for Orders that no Chef has started on yet.
+    private HashMap<Long, Ticket> tickets = new HashMap<>();
+    // Map from table number to the Chef making its Orders.
+    private HashMap<Integer, TableAssignment> tables = new HashMap<>();
+    private long nextSequence;
+
+    // Wait time statistics for tickets that a Chef has started on, in milliseconds.
+    private long ticketsStarted;
+    private long totalWait;
+    private long longestWait;
+
+    /**
+     * Adds a Chef that tickets can be given to.
+     * @param chef The name of the Chef.
+     */
+    public synchronized void addChef(String chef) {
+        if (queues.containsKey(chef)) {
+            return;
+        }
+        ChefQueue queue = new ChefQueue(chef);
+        queues.put(chef, queue);
+        for (Ticket ticket : new ArrayList<>(unassigned.tickets)) {
+            move(ticket, queue);
+        }
+        if (queue.tickets.isEmpty()) {
+            steal(queue);
+        }
+    }
+
+    /**
+     * Creates a ticket for a new Order and queues it for a Chef.
+     * @param order The Order.
+     */
+    private void schedule(Order order) {
+        if (tickets.containsKey(order.getKey())) {
+            return;
+        }
+        Ticket ticket = new Ticket(order, System.currentTimeMillis(), nextSequence++);
+        tickets.put(order.getKey(), ticket);
+
+        TableAssignment assignment = tables.get(order.getTableNumber());
+        if (assignment == null) {
+            assignment = new TableAssignment();
+            assignment.queue = shortestQueue();
+            tables.put(order.getTableNumber(), assignment);
+        }
+        assignment.outstanding++;
+        enqueue(ticket, assignment.queue);
+    }
+
+    private ChefQueue shortestQueue() {
+        ChefQueue shortest = null;
+        for (ChefQueue queue : queues.values()) {
+            if (shortest == null || queue.tickets.size() < shortest.tickets.size()) {
+                shortest = queue;
+            }
+        }
+        return shortest == null ? unassigned : shortest;
+    }
+
+    private void enqueue(Ticket ticket, ChefQueue queue) {
+        ArrayList<Ticket> table = queue.tables.get(ticket.order.getTableNumber());
+        if (table == null) {
+            table = new ArrayList<>();
+            queue.tables.put(ticket.order.getTableNumber(), table);
+        }
+        ticket.group = table.isEmpty() ? ticket.sequence : table.get(0).group;
+        ticket.queue = queue;
+        table.add(ticket);
+        queue.tickets.add(ticket);
+    }
+
+    private void dequeue(Ticket ticket) {
+        ChefQueue queue = ticket.queue;
+        queue.tickets.remove(ticket);
+        ArrayList<Ticket> table = queue.tables.get(ticket.order.getTableNumber());
+        table.remove(ticket);
+        if (table.isEmpty()) {
+            queue.tables.remove(ticket.order.getTableNumber());
+        }
+        ticket.queue = null;
+    }
+
+    /**
+     * Moves a queued ticket to another Chef's queue, along with the table it belongs to.
+     */
+    private void move(Ticket ticket, ChefQueue queue) {
+        dequeue(ticket);
+        enqueue(ticket, queue);
+        TableAssignment assignment = tables.get(ticket.order.getTableNumber());
+        if (assignment != null) {
+            assignment.queue = queue;
+        }
+    }
+
+    /**
+     * Gives an idle Chef the newest table queued for the Chef with the most tickets queued, so that older tickets
+     * stay with the Chef they were given to. Only Chefs with at least two tables queued are stolen from, so the table
+     * at the head of their queue always stays with them and a single table is never passed back and forth.
+     * @param thief The queue of the idle Chef.
+     */
+    private void steal(ChefQueue thief) {
+        ChefQueue victim = null;
+        for (ChefQueue queue : queues.values()) {
+            if (queue != thief && queue.tables.size() >= 2
+                    && (victim == null || queue.tickets.size() > victim.tickets.size())) {
+                victim = queue;
+            }
+        }
+        if (victim == null) {
+            return;
+        }
+        // Tables are ordered by their oldest ticket, so with two or more tables the last ticket is never at the head.
+        int table = victim.tickets.last().order.getTableNumber();
+        for (Ticket ticket : new ArrayList<>(victim.tables.get(table))) {
+            move(ticket, thief);
+        }
+    }
+
+    /**
+     * Takes the ticket for an Order out of its queue, because a Chef has started on it, and records how long it
+     * waited. If that empties the Chef's queue, they take work from the busiest Chef.
+     * @param id The id of the Order.
+     */
+    private void started(Long id) {
+        Ticket ticket = tickets.remove(id);
+        if (ticket == null) {
+            return;
+        }
+        ChefQueue queue = ticket.queue;
+        dequeue(ticket);
+        if (queue.tickets.isEmpty() && queue != unassigned) {
+            steal(queue);
+        }
+        long wait = System.currentTimeMillis() - ticket.placedAt;
+        ticketsStarted++;
+        totalWait += wait;
+        longestWait = Math.max(longestWait, wait);
+    }
+
+    /**
+     * Records that an Order has left the kitchen, so its table can go to any Chef again once all of its Orders have.
+     * @param order The Order.
+     */
+    private void finished(Order order) {
+        started(order.getKey());
+        TableAssignment assignment = tables.get(order.getTableNumber());
+        if (assignment != null && --assignment.outstanding <= 0) {
+            tables.remove(order.getTableNumber());
+        }
+    }
+
+    /**
+     * Takes the ticket for an Order out of its queue, because a Chef has claimed it. Does nothing if the Order has
+     * already been started on.
+     * @param id The id of the Order.
+     */
+    public synchronized void claim(long id) {
+        started(id);
+    }
+
+    /**
+     * Returns the Orders queued for a Chef, in the order they should be made.
+     * @param chef The name of the Chef.
+     * @return The Orders.
+     */
+    public synchronized ArrayList<Order> getQueue(String chef) {
+        ArrayList<Order> orders = new ArrayList<>();
+        ChefQueue queue = queues.get(chef);
+        if (queue == null) {
+            return orders;
+        }
+        for (Ticket ticket : queue.tickets) {
+            orders.add(ticket.order);
+        }
+        return orders;
+    }
+
+    /**
+     * Returns whether the specified Order is queued for a Chef.
+     * @param id The id of the Order.
+     * @param chef The name of the Chef.
+     * @return True if the Order is in the Chef's queue.
+     */
+    public synchronized boolean isQueuedFor(long id, String chef) {
+        Ticket ticket = tickets.get(id);
+        return ticket != null && chef.equals(ticket.queue.chef);
+    }
+
+    /**
+     * Returns the number of tickets that no Chef has started on yet.
+     * @return The number of tickets.
+     */
+    public synchronized int getQueueDepth() {
+        return tickets.size();
+    }
+
+    /**
+     * Returns the number of tickets queued for a Chef.
+     * @param chef The name of the Chef.
+     * @return The number of tickets, or 0 if there is no such Chef.
+     */
+    public synchronized int getQueueDepth(String chef) {
+        ChefQueue queue = queues.get(chef);
+        return queue == null ? 0 : queue.tickets.size();
+    }
+
+    /**
+     * Returns how long tickets have waited on average before a Chef started on them.
+     * @return The average wait in milliseconds, or 0 if no ticket has been started.
+     */
+    public synchronized long getAverageWait() {
+        return ticketsStarted == 0 ? 0 : totalWait / ticketsStarted;
+    }
+
+    /**
+     * Returns the longest time a ticket has waited before a Chef started on it.
+     * @return The longest wait in milliseconds.
+     */
+    public synchronized long getLongestWait() {
+        return longestWait;
+    }
+
+    /**
+     * Returns how long the oldest ticket that no Chef has started on has been waiting.
+     * @return The wait in milliseconds, or 0 if nothing is queued.
+     */
+    public synchronized long getOldestWaiting() {
+        long oldest = Long.MAX_VALUE;
+        for (Ticket ticket : tickets.values()) {
+            oldest = Math.min(oldest, ticket.placedAt);
+        }
+        return tickets.isEmpty() ? 0 : System.currentTimeMillis() - oldest;
+    }
+
+    /**
+     * Updates the queues when an Order is placed, claimed or finished.
+     * @param event The Event.
+     */
+    @Override
+    public synchronized void handleEvent(Event event) {
+        Order order = event.getOrder();
+        if (order == null) {
+            return;
+        }
+        switch (event.getEventType()) {
+            case ORDER:
+                schedule(order);
+                break;
+            case REMOVE_ORDER:
+                // A Chef claims an Order by telling everyone else to remove it.
+                if (event.getExp() != null && !event.getExp().isEmpty()) {
+                    started(order.getKey());
+                }
+                break;
+            case ORDER_READY:
+                finished(order);
+                break;
+        }
+    }
+}
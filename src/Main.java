@@ -1,9 +1,58 @@
+import javafx.application.Application;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
 /**
  * The main class that runs the program.
  */
 public class Main {
 
+    // The directory that the shared Commissary keeps its files in.
+    final private static String COMMISSARY_DIRECTORY = "commissary";
+
+    /**
+     * Runs a single Restaurant with the GUI in the working directory, or if directories are given, one branch
+     * Restaurant for each directory, all sharing a Commissary.
+     *
+     * Branches run without the GUI, since its controllers can only show one Restaurant, and take their Orders through
+     * their OrderIntake. They keep running until the program is shut down, at which point each branch is stopped so
+     * its files are saved, and then the Commissary is closed. Either way, the id allocators are saved last.
+     * @param args The directories of the branches.
+     */
     public static void main(String[] args) {
-        Restaurant restaurant = new Restaurant();
+        if (args.length == 0) {
+            Application.launch(Restaurant.class, args);
+            IdAllocator.saveAll();
+            return;
+        }
+        Commissary commissary = new Commissary(new File(COMMISSARY_DIRECTORY));
+        ArrayList<Restaurant> branches = new ArrayList<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            synchronized (branches) {
+                for (Restaurant branch : branches) {
+                    try {
+                        branch.stop();
+                    } catch (IOException e) {
+                        System.out.println(e.getMessage());
+                    }
+                }
+            }
+            commissary.close();
+            IdAllocator.saveAll();
+        }));
+        for (String directory : args) {
+            Restaurant branch = new Restaurant(new File(directory), commissary);
+            synchronized (branches) {
+                branches.add(branch);
+            }
+        }
+        // Every thread a branch starts is a daemon, so keep the program running until it is shut down.
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -9,28 +9,23 @@ import java.util.Map;
  */
 public class Manager extends Employee implements Receiver {
 
-    // The list of orders that are currently in the system that have not been delivered.
-    private ArrayList<Order> ordersActive = new ArrayList<>();
-
     /**
      * Create a new Manager with the specified name.
+     * @param id The id of the Manager, which stays the same across restarts.
      * @param name The name of the Manager.
      */
-    public Manager(String name, Menu ourMenu, Inventory inventory) {
-        super(name, ourMenu, inventory);
+    public Manager(long id, String name, Menu ourMenu, Inventory inventory, OrderBook orderBook) {
+        super(id, name, ourMenu, inventory, orderBook);
     }
 
     /**
      * Restocks the given set of ingredients and their quantities to the inventory.
      * @param map Map of the ingredients to be restocked in <String, Integer> form,
      *           where the String key value is the name of the ingredient.
+     * @return The result of restocking each ingredient.
      */
-    public void addToInventory(Map<String, Integer> map){
-        for(Map.Entry<String, Integer> entry : map.entrySet()){
-            String ingredientName = entry.getKey();
-            Integer quantity = entry.getValue();
-            inventory.addIngredient(ingredientName, quantity);
-        }
+    public Map<String, DeliveryResult> addToInventory(Map<String, Integer> map){
+        return inventory.receiveDelivery(map);
     }
 
     /**
@@ -68,11 +63,15 @@ public class Manager extends Employee implements Receiver {
     }
 
     /**
-     * Returns an ArrayList containing all of the active Orders in the System.
+     * Returns an ArrayList containing all of the active Orders in the System: those that are in the kitchen or
+     * waiting to be served.
      * @return The ArrayList of active Orders.
      */
     public ArrayList<Order> getActiveOrders() {
-        return this.ordersActive;
+        ArrayList<Order> ordersActive = orderBook.getOrders(OrderState.PLACED);
+        ordersActive.addAll(orderBook.getOrders(OrderState.CLAIMED));
+        ordersActive.addAll(orderBook.getOrders(OrderState.READY));
+        return ordersActive;
     }
 
     @Override
@@ -80,15 +79,5 @@ public class Manager extends Employee implements Receiver {
         if (event.getEventType().equals("print inventory")) {
             this.printInventory();
         }
-
-        // A new Order has been added to the system.
-        if (event.getEventType().equals(EventType.ORDER)) {
-            this.ordersActive.add(event.getOrder());
-        }
-
-        // An order has been removed from the system.
-        if (event.getEventType().equals(EventType.REMOVE_ORDER)) {
-            this.ordersActive.remove(event.getOrder());
-        }
     }
 }
\ No newline at end of file
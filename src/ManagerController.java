@@ -1,3 +1,4 @@
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -18,7 +19,7 @@ import java.util.HashMap;
 /**
  * A class that controls the Manager GUI.
  */
-public class ManagerController implements DialogCloseListener {
+public class ManagerController implements DialogCloseListener, StockListener {
 
     // The default widths and heights of the Window upon creation.
     final private static int DEFAULT_WINDOW_WIDTH = 750;
@@ -51,7 +52,10 @@ public class ManagerController implements DialogCloseListener {
     private static HashMap<String, Manager> employees = new HashMap<>();
 
     // The Menu Items list, which all Managers share.
-    private static HashMap<String, MenuItem> menuItems;
+    private static Menu menu;
+
+    // The kitchen's queues, which all Managers share.
+    private static KitchenScheduler kitchen;
 
     // All of the Ingredients that are in the Inventory.
     private static ArrayList<Ingredient> ingredients;
@@ -72,6 +76,8 @@ public class ManagerController implements DialogCloseListener {
 
     // The Manager that is currently using this GUI.
     private Manager currentManager;
+    // Whether the Inventory pane is the one being shown, so it can be redrawn when an Ingredient runs low.
+    private boolean showingInventory = false;
 
     /**
      * Create a new ManagerController. This creates a new Window container the Manger GUI.
@@ -119,6 +125,7 @@ public class ManagerController implements DialogCloseListener {
         // are selectable.
         this.menuTabButton.setOnMouseClicked(e -> {
             if (this.buttonsSelectable) {
+                this.showingInventory = false;
                 this.mainPane.setCenter(this.createMenuPane().getContentPane());
             } else {
                 Dialog dialog = new ManagerSignInDialog(ManagerController.SIGN_IN_DIALOG_TITLE);
@@ -126,6 +133,7 @@ public class ManagerController implements DialogCloseListener {
         });
         this.inventoryTabButton.setOnMouseClicked(e -> {
             if (this.buttonsSelectable) {
+                this.showingInventory = true;
                 this.mainPane.setCenter(this.createInventoryPane().getContentPane());
             } else {
                 Dialog dialog = new ManagerSignInDialog(ManagerController.SIGN_IN_DIALOG_TITLE);
@@ -133,6 +141,7 @@ public class ManagerController implements DialogCloseListener {
         });
         this.restaurantTabButton.setOnMouseClicked(e -> {
             if (this.buttonsSelectable) {
+                this.showingInventory = false;
                 this.mainPane.setCenter(this.createRestaurantPane().getContentPane());
             } else {
                 Dialog dialog = new ManagerSignInDialog(ManagerController.SIGN_IN_DIALOG_TITLE);
@@ -143,8 +152,12 @@ public class ManagerController implements DialogCloseListener {
         employeeComboBox.valueProperty().addListener((obs, oldItem, newItem) -> {
             if (newItem != null) {
                 this.buttonsSelectable = true;
-                // Set the new user.
+                // Set the new user, and listen to their Inventory instead of the last user's.
+                if (this.currentManager != null) {
+                    this.currentManager.getInventory().removeStockListener(this);
+                }
                 this.currentManager = ManagerController.employees.get(newItem);
+                this.currentManager.getInventory().addStockListener(this);
             }
         });
 
@@ -176,7 +189,7 @@ public class ManagerController implements DialogCloseListener {
      */
     private ManagerGUIContentPane createInventoryPane() {
         ManagerGUIContentPane inventoryPane = ManagerGUIFactory.createInventoryContentPane(
-                this.currentManager.getInventory().getStock());
+                this.currentManager.getInventory());
         // Add buttons.
         Button newButton = inventoryPane.createMenuButton("New");
         newButton.setOnMouseClicked(e -> {
@@ -192,7 +205,7 @@ public class ManagerController implements DialogCloseListener {
                 String itemName = inventoryPane.getSelectedItem().toLowerCase();
                 Ingredient ingredient = this.currentManager.getInventory().getIngredient(itemName);
                 Dialog dialog = new EditInventoryDialog("Edit Ingredient",
-                        ingredient);
+                        ingredient, this.currentManager.getInventory());
                 dialog.setListener(this);
             }
         });
@@ -232,6 +245,12 @@ public class ManagerController implements DialogCloseListener {
             String orderName = "Order " + order.getId();
             orderDisplay.put(orderName, description);
         }
+        if (kitchen != null) {
+            orderDisplay.put("Kitchen", "Tickets queued: " + kitchen.getQueueDepth()
+                    + "\nOldest ticket waiting: " + kitchen.getOldestWaiting() / 1000 + "s"
+                    + "\nAverage wait: " + kitchen.getAverageWait() / 1000 + "s"
+                    + "\nLongest wait: " + kitchen.getLongestWait() / 1000 + "s");
+        }
         restaurantPane.setItemsToDisplay(orderDisplay);
         return restaurantPane;
     }
@@ -249,11 +268,19 @@ public class ManagerController implements DialogCloseListener {
     }
 
     /**
-     * Given a Map of MenuItems, set them to the static Map of menuItems.
-     * @param menuItems Map of Menu Items to be set.
+     * Sets the static Menu.
+     * @param menu The Restaurant's Menu.
      */
-    public static void setMenuItemsList(HashMap<String, MenuItem> menuItems){
-        ManagerController.menuItems = menuItems;
+    public static void setMenu(Menu menu){
+        ManagerController.menu = menu;
+    }
+
+    /**
+     * Sets the static KitchenScheduler.
+     * @param kitchen The Restaurant's KitchenScheduler.
+     */
+    public static void setKitchen(KitchenScheduler kitchen){
+        ManagerController.kitchen = kitchen;
     }
 
     /**
@@ -297,4 +324,23 @@ public class ManagerController implements DialogCloseListener {
             this.mainPane.setCenter(createMenuPane().getContentPane());
         }
     }
+
+    @Override
+    public void lowStock(Ingredient ingredient) {
+        Platform.runLater(this::refreshInventoryPane);
+    }
+
+    @Override
+    public void restocked(Ingredient ingredient) {
+        Platform.runLater(this::refreshInventoryPane);
+    }
+
+    /**
+     * Redraws the Inventory pane if it is the one being shown.
+     */
+    private void refreshInventoryPane() {
+        if (this.showingInventory) {
+            this.mainPane.setCenter(createInventoryPane().getContentPane());
+        }
+    }
 }
\ No newline at end of file
@@ -7,8 +7,8 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * A class that provides factory methods to create parts of the Manager GUI.
@@ -108,13 +108,13 @@ public class ManagerGUIFactory {
     /**
      * Creates and returns a new Menu Content Pane. A Menu Content Pane consists of a list of all the Menu Items in
      * the menu.
-     * @param menu A HashMap that stores the name of each MenuItem as a key, and the MenuItem object as the instance.
+     * @param menu The Menu to list the MenuItems of.
      * @return The ManagerGUIContentPane.
      */
     public static ManagerGUIContentPane createMenuContentPane(Menu menu) {
 
-        // Get the Menu Items.
-        HashMap<String, MenuItem> menuItems = menu.getMenuItems();
+        // Get the Menu Items from the current version of the Menu.
+        Map<String, MenuItem> menuItems = menu.getView().getMenuItems();
 
         // HashMap that represents the contents of each list item. The key represent name of the item, while the
         // corresponding value is the description.
@@ -127,9 +127,9 @@ public class ManagerGUIFactory {
             description += "Cost: " + item.getCost() + " | Ingredients:";
 
             // Loop through each Ingredient in this MenuItem to get data.
-            for (Ingredient ingredient : item.getIngredients().keySet()) {
-                int amount = item.getIngredients().get(ingredient);
-                description += " | " + ingredient.getName() + " (" + amount + ")";
+            for (int i = 0; i < item.getIngredientIds().length; i++) {
+                Ingredient ingredient = menu.getInventory().getIngredient(item.getIngredientIds()[i]);
+                description += " | " + ingredient.getName() + " (" + item.getQuantities()[i] + ")";
             }
             contents.put(itemName, description);
         }
@@ -140,20 +140,21 @@ public class ManagerGUIFactory {
 
     /**
      * Creates and returns a new Inventory Content Pane. A Inventory Content Pane consists of a list of all Ingredients
-     * in the Inventory.
-     * @param ingredients A ArrayList that stores all of the Ingredients from the Inventory.
+     * in the Inventory, read from one version of the Inventory so the amounts are consistent with each other.
+     * @param inventory The Inventory to list the Ingredients of.
      * @return The ManagerGUIContentPane.
      */
-    public static ManagerGUIContentPane createInventoryContentPane(ArrayList<Ingredient> ingredients) {
+    public static ManagerGUIContentPane createInventoryContentPane(Inventory inventory) {
         // HashMap that represents the contents of each list item. The key represent name of the Ingredient, while the
         // corresponding value is the description, which includes the current amount in the Inventory, etc.
         HashMap<String, String> contents = new HashMap<>(0);
 
-        for (Ingredient ingredient : ingredients) {
-            String description = "";
-            description += "Current amount: " + ingredient.getAmount();
-            description += " | Threshold at which needs to be restocked: " + ingredient.getRestockThreshold();
-            description += " | Amount to order when requesting: " + ingredient.getRequestAmount();
+        for (IngredientState ingredient : inventory.getView().getIngredientStates()) {
+            // The amount to request depends on the consumption rate, which is not part of the view.
+            int amountToRequest = inventory.getIngredient(ingredient.getId()).getAmountToRequest();
+            String description = "Current amount: " + ingredient.getAmount()
+                    + " | Threshold at which needs to be restocked: " + ingredient.getRestockThreshold()
+                    + " | Amount to order when requesting: " + amountToRequest;
             String name = ingredient.getName();
             // Capitalize first letter of Ingredient name.
             name = name.substring(0, 1).toUpperCase() + name.substring(1);
@@ -1,54 +1,99 @@
 import java.io.*;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Map;
 
+/**
+ * The Menu of a Restaurant. The MenuItems are published as immutable MenuViews: every edit replaces the current view
+ * with a new copy in one step, so Servers taking Orders never see a half-made edit and never wait on one.
+ */
 public class Menu implements Serializable{
-    private HashMap<String, MenuItem> menuItems = new HashMap<>();
+    private volatile MenuView view;
     private Inventory inventory;
     public Menu(Inventory inventory){
         this.inventory = inventory;
         initializeMenu();
     }
 
+    /**
+     * Loads the MenuItems in 'menu.txt'. The file is parsed in parallel, with every Ingredient name resolved to its
+     * Inventory id as the line is parsed.
+     */
     private void initializeMenu() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(new File("menu.txt")))) {
-            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                String[] item = line.split("\\|");
-                String[] order = item[0].split(" ");
-                String name = order[0];
-                int cost = Integer.parseInt(order[1].trim());
-                Map<Ingredient, Integer> ingredients = new HashMap<>();
-
-                for (int i = 1; i < item.length; i++) {
-                    String[] ingredient = item[i].split(",");
-                    String ingredientName = ingredient[0].trim();
-                    Integer quantity = Integer.parseInt(ingredient[1].trim());
-                    ingredients.put(inventory.getIngredient(ingredientName), quantity);
-                }
-
-                menuItems.put(name, new MenuItem(name, cost, ingredients));
+        HashMap<String, MenuItem> menuItems = new HashMap<>();
+        try {
+            for (MenuItem item : CatalogLoader.load(new File("menu.txt"), this::parseMenuItem)) {
+                menuItems.put(item.getName(), item);
             }
         } catch (IOException e) {
             System.out.println(e.getMessage());
             System.out.println("File I/O error!");
         }
+        this.view = MenuView.of(menuItems);
+    }
+
+    /**
+     * Parses a line of 'menu.txt', of the form "name cost | ingredient, amount | ingredient, amount |". The name is
+     * everything before the cost, so it may contain spaces, as in "Grilled Cheese 8".
+     * @param line The line.
+     * @return The MenuItem.
+     * @throws IllegalArgumentException If the line is not valid or uses an Ingredient that is not in the Inventory.
+     */
+    private MenuItem parseMenuItem(String line) {
+        String[] fields = line.split("\\|");
+        String[] header = CatalogLoader.splitLast(fields[0].trim(), ' ');
+        int cost = CatalogLoader.parseNumber(header[1], "cost");
+        int[] ingredientIds = new int[fields.length - 1];
+        int[] quantities = new int[fields.length - 1];
+        int count = 0;
+        for (int i = 1; i < fields.length; i++) {
+            String field = fields[i].trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            String[] reference = CatalogLoader.splitLast(field, ',');
+            Ingredient ingredient = inventory.getIngredient(reference[0]);
+            if (ingredient == null) {
+                throw new IllegalArgumentException("unknown ingredient \"" + reference[0] + "\"");
+            }
+            ingredientIds[count] = ingredient.getId();
+            quantities[count] = CatalogLoader.parseNumber(reference[1], "amount of " + reference[0]);
+            count++;
+        }
+        return new MenuItem(header[0], cost, Arrays.copyOf(ingredientIds, count), Arrays.copyOf(quantities, count));
     }
 
-    public HashMap<String, MenuItem> getMenuItems() {
-        return menuItems;
+    /**
+     * Returns the Inventory that the Ingredients of this Menu's MenuItems belong to.
+     * @return The Inventory.
+     */
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Returns the current version of this Menu. The view will not change, even if the Menu is edited while it is
+     * being read.
+     * @return The current view.
+     */
+    public MenuView getView() {
+        return view;
     }
 
     public MenuItem getMenuItem(String name){
-        return menuItems.get(name);
+        return view.getMenuItem(name);
     }
 
     /**
-     * Returns a copy of the MenuItem. This is necessary so if it needs to be customized, it will not affect the default
-     * ingredients of the MenuItem.
-     * @param name The name of the MenuItem to copy.
-     * @return A deep copy of the MenuItem.
+     * Adds a new MenuItem to this Menu by publishing a new view with it. Orders already being taken keep the view they
+     * started with.
+     * @param item The MenuItem to add.
+     * @return True if the MenuItem was added, false if there is already a MenuItem with the same name.
      */
-    public MenuItem getCopy(String name) {
-        return menuItems.get(name).makeCopy();
+    public synchronized boolean addMenuItem(MenuItem item) {
+        if (view.contains(item.getName())) {
+            return false;
+        }
+        view = view.with(item);
+        return true;
     }
 }
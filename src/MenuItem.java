@@ -1,18 +1,23 @@
 import java.io.Serializable;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * A MenuItem. MenuItems are items that one can order from a Menu. MenuItems store the name, the cost, and the
  * Ingredients needed to create the menu item.
+ *
+ * The recipe is stored as two parallel arrays: the Inventory ids of the Ingredients, and the amount of each of them.
+ * This keeps reserving its Ingredients down to simple array loops.
+ *
+ * A MenuItem is never changed once created, so every OrderLine for it can share it. Customizations are kept on the
+ * OrderLine instead.
  */
 public class MenuItem implements Serializable{
     private String name;
     private int cost;
-    private Map<Ingredient, Integer> ingredients;
-    private boolean payed;
+    // The Inventory ids of the Ingredients in this MenuItem.
+    private int[] ingredientIds;
+    // The amount of each Ingredient, where quantities[i] is the amount of the Ingredient with id ingredientIds[i].
+    private int[] quantities;
 
     /**
      * Constructor for MenuItem.
@@ -23,43 +28,28 @@ public class MenuItem implements Serializable{
     public MenuItem(String name, int cost, Map<Ingredient, Integer> ingredients){
         this.name = name;
         this.cost = cost;
-        this.ingredients = ingredients;
-        this.payed = false;
-    }
-
-    /**
-     * Add specific ingredients to this MenuItem.
-     * @param ingredient Ingredient to be added.
-     * @param amount Amount of this ingredient to be added.
-     */
-    public void addIngredient(Ingredient ingredient, Integer amount){
-        Integer currAmount = ingredients.get(ingredient);
-        currAmount = currAmount == null? amount: currAmount + amount;
-        ingredients.put(ingredient, currAmount);
-    }
-
-    /**
-     * Setter that determinates if a MenuItem was payed or not.
-     * @param x Boolean Payed
-     */
-    public void setPayed(boolean x){
-        this.payed=x;
+        this.ingredientIds = new int[ingredients.size()];
+        this.quantities = new int[ingredients.size()];
+        int i = 0;
+        for (Map.Entry<Ingredient, Integer> pair : ingredients.entrySet()) {
+            this.ingredientIds[i] = pair.getKey().getId();
+            this.quantities[i] = pair.getValue();
+            i++;
+        }
     }
 
     /**
-     * Getter to see if the MenuItem was payed or not.
-     * @return Boolean Payed
-     */
-    public boolean getPayed(){
-        return this.payed;
-    }
-    /**
-     * Remove specific ingredients to this MenuItem.
-     * @param ingredient Ingredient to be remove.
-     * @param amount Amount of this ingredient to be removed.
+     * Constructor for MenuItem.
+     * @param name Name of the MenuItem.
+     * @param cost Cost of the MenuItem.
+     * @param ingredientIds The Inventory ids of the Ingredients in this MenuItem.
+     * @param quantities The amount of each Ingredient, in the same order as ingredientIds.
      */
-    public void removeIngredient(Ingredient ingredient, Integer amount){
-        ingredients.put(ingredient, ingredients.get(ingredient) - amount);
+    public MenuItem(String name, int cost, int[] ingredientIds, int[] quantities){
+        this.name = name;
+        this.cost = cost;
+        this.ingredientIds = ingredientIds;
+        this.quantities = quantities;
     }
 
     /**
@@ -79,39 +69,21 @@ public class MenuItem implements Serializable{
     }
 
     /**
-     * Returns the Ingredients that are needed to make this MenuItem, in the form of a Map. The key is the Ingredient,
-     * while the Integer is the number of Ingredients of that type.
-     * @return The ingredients.
+     * Returns the Inventory ids of the Ingredients that are needed to make this MenuItem. The array is shared with
+     * this MenuItem, so it must not be modified.
+     * @return The ids of the Ingredients.
      */
-    public Map<Ingredient, Integer> getIngredients() {
-        return this.ingredients;
+    public int[] getIngredientIds() {
+        return this.ingredientIds;
     }
 
     /**
-     * Returns a deep copy of this MenuItem. The copy will have the exact same name and ingredients Map.
-     * @return A deep copy of this MenuItem.
+     * Returns the amount of each Ingredient that is needed to make this MenuItem, in the same order as
+     * getIngredientIds(). The array is shared with this MenuItem, so it must not be modified.
+     * @return The amounts of the Ingredients.
      */
-    public MenuItem makeCopy() {
-        // Strings are immutable.
-        String nameCopy = this.name;
-        // Maps are not. Make a deep copy.
-        Map<Ingredient, Integer> ingredientsCopy = this.copyIngredients();
-        MenuItem itemCopy = new MenuItem(nameCopy, this.cost, ingredientsCopy);
-        return itemCopy;
-    }
-
-    /**
-     * Makes a deep copy of ingredients.
-     * @return The deep copy.
-     */
-    private Map<Ingredient, Integer> copyIngredients() {
-        Map<Ingredient, Integer> ingredientsCopy = new HashMap<>(0);
-        for (Ingredient ingredient : this.ingredients.keySet()) {
-            // Get the number of this kind of ingredient.
-            int number = this.ingredients.get(ingredient);
-            ingredientsCopy.put(ingredient, number);
-        }
-        return ingredientsCopy;
+    public int[] getQuantities() {
+        return this.quantities;
     }
 
     /**
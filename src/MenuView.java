@@ -0,0 +1,84 @@
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, versioned view of every MenuItem on a Menu. Editing the Menu publishes a new view, so an Order can
+ * keep using the view it started with while the Menu changes, and readers never need a lock.
+ */
+public class MenuView implements Serializable {
+
+    final private static long serialVersionUID = 1L;
+
+    private final long version;
+    private final Map<String, MenuItem> menuItems;
+
+    private MenuView(long version, Map<String, MenuItem> menuItems) {
+        this.version = version;
+        this.menuItems = Collections.unmodifiableMap(menuItems);
+    }
+
+    /**
+     * Returns the first view of a Menu.
+     * @param menuItems Map from name to MenuItem. The map is not copied, so it must not be changed afterwards.
+     * @return The view.
+     */
+    static MenuView of(HashMap<String, MenuItem> menuItems) {
+        return new MenuView(0, menuItems);
+    }
+
+    /**
+     * Returns a new view with the given MenuItem added, replacing any MenuItem with the same name.
+     * @param item The MenuItem to add.
+     * @return The new view, one version after this one.
+     */
+    MenuView with(MenuItem item) {
+        HashMap<String, MenuItem> copy = new HashMap<>(this.menuItems);
+        copy.put(item.getName(), item);
+        return new MenuView(this.version + 1, copy);
+    }
+
+    /**
+     * Returns the version of this view. Every edit to the Menu increases the version by one.
+     * @return The version.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns the MenuItem with the specified name.
+     * @param name The name of the MenuItem.
+     * @return The MenuItem, or null if it is not on this version of the Menu.
+     */
+    public MenuItem getMenuItem(String name) {
+        return this.menuItems.get(name);
+    }
+
+    /**
+     * Returns whether there is a MenuItem with the specified name.
+     * @param name The name of the MenuItem.
+     * @return True if it is on this version of the Menu.
+     */
+    public boolean contains(String name) {
+        return this.menuItems.containsKey(name);
+    }
+
+    /**
+     * Returns the names of every MenuItem.
+     * @return A read-only set of names.
+     */
+    public Set<String> getNames() {
+        return this.menuItems.keySet();
+    }
+
+    /**
+     * Returns every MenuItem, keyed by name.
+     * @return A read-only map from name to MenuItem.
+     */
+    public Map<String, MenuItem> getMenuItems() {
+        return this.menuItems;
+    }
+}
@@ -5,33 +5,67 @@ import java.util.ArrayList;
  * that make up the order, and the table number that the order is for.
  */
 public class Order {
-    // Used to generate a unique id for each order.
-    private static int nextId = 0;
+    // Used to generate a unique id for each order, even across restarts and branches.
+    final private static IdAllocator ids = IdAllocator.forType("Order");
     private String serverName;
-    private int id;
-    private ArrayList<MenuItem> menuItems;
-    private boolean[] payed;
+    // The id of the Server that took this order, or Event.EVERYONE if it did not come from a Server.
+    private long serverId = Event.EVERYONE;
+    private long id;
+    // The id, boxed once, so that maps keyed by Order id can be searched for this Order without boxing the id again.
+    private Long key;
+    private ArrayList<OrderLine> menuItems;
     private int tableNum;
     private int cost;
+    // The version of the Menu this order was taken from. Edits to the Menu after the order started do not affect it.
+    private MenuView menu;
     /**
      * Create a new Order with the indicated table number.
      * @param tableNum The table number relating to this order.
+     * @param menu The version of the Menu that the order is taken from.
      */
-    public Order(int tableNum) {
-        this.payed = new boolean[100];
+    public Order(int tableNum, MenuView menu) {
         this.tableNum = tableNum;
-        this.id = Order.nextId++;
+        this.menu = menu;
+        this.id = Order.ids.nextId();
+        this.key = this.id;
         this.cost = 0;
         this.menuItems = new ArrayList<>();
     }
 
     /**
-     * Add a new item to this order.
+     * Recreates an Order that was saved, keeping its id.
+     * @param id The id of the Order.
+     * @param tableNum The table number relating to this order.
+     * @param menu The version of the Menu to use for the order.
+     */
+    Order(long id, int tableNum, MenuView menu) {
+        this.tableNum = tableNum;
+        this.menu = menu;
+        this.id = id;
+        this.key = id;
+        this.cost = 0;
+        this.menuItems = new ArrayList<>();
+    }
+
+    /**
+     * Add a new item to this order. The order gets its own line for the item, which refers to the shared MenuItem.
      * @param item The MenuItem to add.
+     * @return The new line, which can be customized without affecting the MenuItem.
      */
-    public void addToOrder(MenuItem item) {
+    public OrderLine addToOrder(MenuItem item) {
+        OrderLine line = new OrderLine(item);
         this.cost += item.getCost();
-        this.menuItems.add(item);
+        this.menuItems.add(line);
+        return line;
+    }
+
+    /**
+     * Adds a line that was saved with this Order back to it.
+     * @param line The line.
+     */
+    void restoreLine(OrderLine line) {
+        this.cost += line.getCost();
+        this.menuItems.add(line);
     }
 
     /**
@@ -48,33 +82,71 @@ public class Order {
      */
     public ArrayList<String> getItemsNames(){
         ArrayList<String> items = new ArrayList<>();
-        for(MenuItem i : menuItems){
-            if(!i.getPayed())items.add("Item: " +i.getName() + ". Cost: " + i.getCost() + " CAD");
+        for(OrderLine i : menuItems){
+            if(!i.isSettled())items.add("Item: " +i.getName() + ". Cost: " + i.getCost() + " CAD");
         }
         return items;
     }
 
     /**
-     * Getter for the list of MenuItems that were not payed yet.
-     * @return ArrayList of MenuItem.
+     * Getter for the list of MenuItems that were not payed or voided yet.
+     * @return ArrayList of OrderLines.
      */
-    public ArrayList<MenuItem> getUnpaidItems(){
-        ArrayList<MenuItem> temp = new ArrayList<>();
-        for(MenuItem i : menuItems){
-            if(!i.getPayed())temp.add(i);
+    public ArrayList<OrderLine> getUnpaidItems(){
+        ArrayList<OrderLine> temp = new ArrayList<>();
+        for(OrderLine i : menuItems){
+            if(!i.isSettled())temp.add(i);
         }
         return temp;
     }
 
+    /**
+     * Returns whether every item on this order has been paid for or voided.
+     * @return True if nothing is left to pay.
+     */
+    public boolean isSettled(){
+        for(OrderLine i : menuItems){
+            if(!i.isSettled())return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether every item on this order has been voided, so none of it was paid for.
+     * @return True if every item was voided.
+     */
+    public boolean isVoided(){
+        for(OrderLine i : menuItems){
+            if(!i.isVoided())return false;
+        }
+        return true;
+    }
+
     /**
      * Getter for the list of menuItems
-     * @return list of MenuItems
+     * @return list of OrderLines
      */
-    public ArrayList<MenuItem> getItems(){
+    public ArrayList<OrderLine> getItems(){
         return menuItems;
     }
 
 
+    /**
+     * Returns the version of the Menu that this order was taken from.
+     * @return The Menu.
+     */
+    public MenuView getMenu() {
+        return this.menu;
+    }
+
+    /**
+     * Returns the version number of the Menu that this order was taken from.
+     * @return The Menu version.
+     */
+    public long getMenuVersion() {
+        return this.menu.getVersion();
+    }
+
     /**
      * Get the table number that this order is for.
      * @return The table number.
@@ -87,10 +159,18 @@ public class Order {
      * Returns the id of this order.
      * @return The id.
      */
-    public int getId() {
+    public long getId() {
         return this.id;
     }
 
+    /**
+     * Returns the id of this order as the key of a map.
+     * @return The boxed id.
+     */
+    Long getKey() {
+        return this.key;
+    }
+
     /**
      * Getter for the cost of the Order.
      * @return Cost of the Order.
@@ -106,7 +186,7 @@ public class Order {
     @Override
     public String toString(){
         String ret = "Order number: " + id + ", Table number: " + tableNum + "\n";
-        for(MenuItem it : menuItems){
+        for(OrderLine it : menuItems){
             ret += it + "\t\t+" + it.getCost() + "\n";
         }
         ret += "Total of this order: \t +" + cost;
@@ -121,6 +201,22 @@ public class Order {
         serverName = name;
     }
 
+    /**
+     * Setter for the id of the Server that took this order.
+     * @param id Server's id.
+     */
+    public void setServerId(long id){
+        serverId = id;
+    }
+
+    /**
+     * Getter for the id of the Server that took this order.
+     * @return Server's id, or Event.EVERYONE if the order did not come from a Server.
+     */
+    public long getServerId(){
+        return serverId;
+    }
+
     /**
      * Getter for the Server's name.
      * @return String Server's name.
@@ -0,0 +1,369 @@
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * The OrderBook keeps track of every Order in the Restaurant and the state that it is in. The lists of Orders that
+ * Chefs, Servers and Managers see are all read from here, instead of each of them keeping copies of their own.
+ *
+ * Orders are indexed by id, by state, and by the Employees working on them, so looking up an Order and moving it to a
+ * new state take constant time, and listing the Orders in a state only touches those Orders. Each index keeps Orders
+ * in the order that they entered their state, so the oldest comes first.
+ */
+public class OrderBook implements EventReceiver {
+
+    /**
+     * Where one Order is up to.
+     */
+    private static class Entry {
+        private final Order order;
+        private OrderState state;
+        // The name of the Chef that claimed the Order, or null if no Chef has claimed it yet.
+        private String chef;
+        // Whether the Order's table was closed before the Order was finished with, so it is forgotten once it is.
+        private boolean tableClosed;
+
+        private Entry(Order order) {
+            this.order = order;
+        }
+    }
+
+    // Map from Order id to where the Order is up to.
+    private HashMap<Long, Entry> entries = new HashMap<>();
+    // The Orders in each state, by id.
+    private EnumMap<OrderState, LinkedHashMap<Long, Order>> byState = new EnumMap<>(OrderState.class);
+    // For each Employee name, the Orders in each state that they are working on, by id. An Order is filed under its
+    // Server and, once it has been claimed, under its Chef.
+    private HashMap<String, EnumMap<OrderState, LinkedHashMap<Long, Order>>> byEmployee = new HashMap<>();
+
+    /**
+     * Creates an empty OrderBook.
+     */
+    public OrderBook() {
+        for (OrderState state : OrderState.values()) {
+            byState.put(state, new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Adds a new Order that has been sent to the kitchen.
+     * @param order The Order.
+     * @return True if the Order was added, false if it is already in the OrderBook.
+     */
+    public synchronized boolean place(Order order) {
+        return add(order, OrderState.PLACED);
+    }
+
+    /**
+     * Adds a new Order that could not be sent to the kitchen because there were not enough Ingredients.
+     * @param order The Order.
+     * @return True if the Order was added, false if it is already in the OrderBook.
+     */
+    public synchronized boolean reject(Order order) {
+        return add(order, OrderState.REJECTED);
+    }
+
+    /**
+     * Claims a placed Order for a Chef. An Order can only be claimed once, so if two Chefs claim the same Order at
+     * the same time, only one of them gets it.
+     * @param id The id of the Order.
+     * @param chef The name of the Chef.
+     * @return True if the Chef now has the Order, false if it was not waiting to be claimed.
+     */
+    public synchronized boolean claim(long id, String chef) {
+        return claim(entries.get(id), chef);
+    }
+
+    private boolean claim(Entry entry, String chef) {
+        if (entry == null || entry.state != OrderState.PLACED) {
+            return false;
+        }
+        unfile(entry);
+        entry.chef = chef;
+        file(entry, OrderState.CLAIMED);
+        return true;
+    }
+
+    /**
+     * Marks an Order as prepared. If no Chef had claimed the Order, it is recorded as prepared by the specified Chef.
+     * @param id The id of the Order.
+     * @param chef The name of the Chef that prepared the Order, or null if it is not known.
+     * @return True if the Order is now ready, false if it was not being prepared.
+     */
+    public synchronized boolean ready(long id, String chef) {
+        return ready(entries.get(id), chef);
+    }
+
+    private boolean ready(Entry entry, String chef) {
+        if (entry == null || (entry.state != OrderState.PLACED && entry.state != OrderState.CLAIMED)) {
+            return false;
+        }
+        unfile(entry);
+        if (entry.chef == null) {
+            entry.chef = chef;
+        }
+        file(entry, OrderState.READY);
+        return true;
+    }
+
+    /**
+     * Marks a ready Order as brought out to its table. If every item on it has already been settled, it is marked as
+     * paid straight away, or as returned if every item was voided.
+     * @param id The id of the Order.
+     * @return True if the Order was served, false if it was not ready.
+     */
+    public synchronized boolean serve(long id) {
+        return serve(entries.get(id));
+    }
+
+    private boolean serve(Entry entry) {
+        if (entry == null || entry.state != OrderState.READY) {
+            return false;
+        }
+        // The Bill only tries to mark the Order as paid or returned once, when its last line is settled, which may
+        // have been before it was served.
+        if (!entry.order.isSettled()) {
+            move(entry, OrderState.SERVED);
+        } else {
+            move(entry, entry.order.isVoided() ? OrderState.RETURNED : OrderState.PAID);
+        }
+        return true;
+    }
+
+    /**
+     * Marks a served Order as paid for.
+     * @param id The id of the Order.
+     * @return True if the Order was marked as paid, false if it had not been served.
+     */
+    public synchronized boolean pay(long id) {
+        return pay(entries.get(id));
+    }
+
+    private boolean pay(Entry entry) {
+        if (entry == null || entry.state != OrderState.SERVED) {
+            return false;
+        }
+        move(entry, OrderState.PAID);
+        return true;
+    }
+
+    /**
+     * Marks an Order as sent back by its table.
+     * @param id The id of the Order.
+     * @return True if the Order was marked as returned, false if it had not left the kitchen.
+     */
+    public synchronized boolean returnOrder(long id) {
+        return returnOrder(entries.get(id));
+    }
+
+    private boolean returnOrder(Entry entry) {
+        if (entry == null || (entry.state != OrderState.READY && entry.state != OrderState.SERVED)) {
+            return false;
+        }
+        move(entry, OrderState.RETURNED);
+        return true;
+    }
+
+    /**
+     * Puts back an Order that was saved, in the state it was saved in.
+     * @param order The Order.
+     * @param state The state the Order was in.
+     * @param chef The name of the Chef that claimed the Order, or null if no Chef had.
+     * @return True if the Order was added, false if it is already in the OrderBook.
+     */
+    synchronized boolean restore(Order order, OrderState state, String chef) {
+        if (entries.containsKey(order.getKey())) {
+            return false;
+        }
+        Entry entry = new Entry(order);
+        entry.chef = chef;
+        entries.put(order.getKey(), entry);
+        file(entry, state);
+        return true;
+    }
+
+    /**
+     * Takes an Order out of the OrderBook once nothing more can happen to it: it has been paid for or returned and its
+     * table has been closed, or it was rejected and its Server has been told. This keeps the OrderBook from growing
+     * for as long as the Restaurant is open.
+     *
+     * A table can be paid up and closed before its Orders have been served. Such an Order is taken out later, once it
+     * has been paid for or returned.
+     * @param id The id of the Order.
+     * @return True if the Order was taken out, false if it is not in the OrderBook or could still change.
+     */
+    public synchronized boolean forget(long id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.state != OrderState.PAID && entry.state != OrderState.RETURNED
+                && entry.state != OrderState.REJECTED) {
+            entry.tableClosed = true;
+            return false;
+        }
+        unfile(entry);
+        entries.remove(id);
+        return true;
+    }
+
+    private boolean add(Order order, OrderState state) {
+        if (entries.containsKey(order.getKey())) {
+            return false;
+        }
+        Entry entry = new Entry(order);
+        entries.put(order.getKey(), entry);
+        file(entry, state);
+        return true;
+    }
+
+    private void move(Entry entry, OrderState state) {
+        unfile(entry);
+        if (entry.tableClosed && (state == OrderState.PAID || state == OrderState.RETURNED)) {
+            entries.remove(entry.order.getKey());
+            return;
+        }
+        file(entry, state);
+    }
+
+    /**
+     * Puts an Order into the indexes for a state.
+     */
+    private void file(Entry entry, OrderState state) {
+        Long id = entry.order.getKey();
+        entry.state = state;
+        byState.get(state).put(id, entry.order);
+        String server = entry.order.getServerName();
+        if (server != null) {
+            employeeOrders(server).get(state).put(id, entry.order);
+        }
+        if (entry.chef != null && !entry.chef.equals(server)) {
+            employeeOrders(entry.chef).get(state).put(id, entry.order);
+        }
+    }
+
+    /**
+     * Takes an Order out of the indexes for its current state.
+     */
+    private void unfile(Entry entry) {
+        Long id = entry.order.getKey();
+        byState.get(entry.state).remove(id);
+        String server = entry.order.getServerName();
+        if (server != null) {
+            employeeOrders(server).get(entry.state).remove(id);
+        }
+        if (entry.chef != null) {
+            employeeOrders(entry.chef).get(entry.state).remove(id);
+        }
+    }
+
+    private EnumMap<OrderState, LinkedHashMap<Long, Order>> employeeOrders(String name) {
+        EnumMap<OrderState, LinkedHashMap<Long, Order>> orders = byEmployee.get(name);
+        if (orders == null) {
+            orders = new EnumMap<>(OrderState.class);
+            for (OrderState state : OrderState.values()) {
+                orders.put(state, new LinkedHashMap<>());
+            }
+            byEmployee.put(name, orders);
+        }
+        return orders;
+    }
+
+    /**
+     * Returns the Order with the specified id.
+     * @param id The id of the Order.
+     * @return The Order, or null if it is not in the OrderBook.
+     */
+    public synchronized Order getOrder(long id) {
+        Entry entry = entries.get(id);
+        return entry == null ? null : entry.order;
+    }
+
+    /**
+     * Returns the state that the specified Order is in.
+     * @param id The id of the Order.
+     * @return The state, or null if the Order is not in the OrderBook.
+     */
+    public synchronized OrderState getState(long id) {
+        Entry entry = entries.get(id);
+        return entry == null ? null : entry.state;
+    }
+
+    /**
+     * Returns the name of the Chef that claimed the specified Order.
+     * @param id The id of the Order.
+     * @return The name of the Chef, or null if the Order has not been claimed.
+     */
+    public synchronized String getChef(long id) {
+        Entry entry = entries.get(id);
+        return entry == null ? null : entry.chef;
+    }
+
+    /**
+     * Returns the Orders in the specified state, oldest first.
+     * @param state The state.
+     * @return A copy of the list of Orders.
+     */
+    public synchronized ArrayList<Order> getOrders(OrderState state) {
+        return new ArrayList<>(byState.get(state).values());
+    }
+
+    /**
+     * Returns the Orders in the specified state that an Employee is working on, oldest first. These are the Orders
+     * that the Employee is the Server of, or that the Employee claimed as a Chef.
+     * @param state The state.
+     * @param employee The name of the Employee.
+     * @return A copy of the list of Orders.
+     */
+    public synchronized ArrayList<Order> getOrders(OrderState state, String employee) {
+        EnumMap<OrderState, LinkedHashMap<Long, Order>> orders = byEmployee.get(employee);
+        return orders == null ? new ArrayList<>() : new ArrayList<>(orders.get(state).values());
+    }
+
+    /**
+     * Returns the number of Orders in the specified state.
+     * @param state The state.
+     * @return The number of Orders.
+     */
+    public synchronized int size(OrderState state) {
+        return byState.get(state).size();
+    }
+
+    /**
+     * Moves the Order that an Event is about to its new state. The Order is looked up by its boxed id, so handling an
+     * Event does not box it again.
+     * @param event The Event.
+     */
+    @Override
+    public synchronized void handleEvent(Event event) {
+        Order order = event.getOrder();
+        if (order == null) {
+            return;
+        }
+        Entry entry = entries.get(order.getKey());
+        switch (event.getEventType()) {
+            case ORDER:
+                place(order);
+                break;
+            case UNABLE_TO_COMPLETE:
+                reject(order);
+                break;
+            case REMOVE_ORDER:
+                // A Chef claims an Order by telling everyone else to remove it.
+                if (event.getExp() != null && !event.getExp().isEmpty()) {
+                    claim(entry, event.getExp());
+                }
+                break;
+            case ORDER_READY:
+                ready(entry, event.getChef());
+                break;
+            case SERVE:
+                serve(entry);
+                break;
+            case RETURN_ORDER:
+                returnOrder(entry);
+                break;
+        }
+    }
+}
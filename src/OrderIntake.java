@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The OrderIntake takes in whole batches of Orders at once, such as those from kiosks or online ordering, rather than
+ * one at a time through a Server.
+ *
+ * Each batch is checked, has its Ingredients reserved from the Inventory in one pass, and is announced to the
+ * EventReceivers listening as one batch of Events, so the cost of locking and of notifying is shared by every Order in
+ * the batch.
+ */
+public class OrderIntake implements EventCreator {
+    private CopyOnWriteArrayList<EventReceiver> observers = new CopyOnWriteArrayList<>();
+    private Inventory inventory;
+    private FloorPlan floorPlan;
+
+    /**
+     * Creates an OrderIntake for a Restaurant.
+     * @param inventory The Inventory that Orders are made from.
+     * @param floorPlan The floor plan that Orders' tables must be on.
+     */
+    public OrderIntake(Inventory inventory, FloorPlan floorPlan) {
+        this.inventory = inventory;
+        this.floorPlan = floorPlan;
+    }
+
+    /**
+     * Submits a batch of Orders. Orders are checked and reserved in the order given, so when stock runs short the
+     * earlier Orders are the ones accepted. Accepted Orders are sent to the kitchen as ORDER Events, and Orders
+     * without enough stock as UNABLE_TO_COMPLETE Events, all in one batch. An Order that appears more than once in the
+     * batch is only submitted once.
+     * @param orders The Orders.
+     * @return Map from the id of each Order to the result of submitting it, in the order given.
+     */
+    public Map<Long, IntakeResult> submit(List<Order> orders) {
+        Map<Long, IntakeResult> results = new LinkedHashMap<>();
+        ArrayList<Order> valid = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            if (results.containsKey(order.getId())) {
+                continue;
+            }
+            if (!floorPlan.isTable(order.getTableNumber())) {
+                results.put(order.getId(), IntakeResult.UNKNOWN_TABLE);
+            } else if (order.getSize() == 0) {
+                results.put(order.getId(), IntakeResult.EMPTY_ORDER);
+            } else {
+                // Holds the Order's place in the results until it has been reserved.
+                results.put(order.getId(), null);
+                valid.add(order);
+            }
+        }
+
+        boolean[] reserved = inventory.reserveAll(valid);
+        ArrayList<Event> events = new ArrayList<>(valid.size());
+        for (int i = 0; i < reserved.length; i++) {
+            Order order = valid.get(i);
+            results.put(order.getId(), reserved[i] ? IntakeResult.ACCEPTED : IntakeResult.NOT_ENOUGH_STOCK);
+            Event event = Event.claim(reserved[i] ? EventType.ORDER : EventType.UNABLE_TO_COMPLETE);
+            event.addOrder(order);
+            event.setServer(order.getServerId(), order.getServerName());
+            if (!reserved[i]) {
+                event.setRecipient(order.getServerId());
+            }
+            events.add(event);
+        }
+        sendEvents(events);
+        return results;
+    }
+
+    @Override
+    public void addListener(EventReceiver eventReceiver) {
+        this.observers.add(eventReceiver);
+    }
+
+    @Override
+    public void removeListener(EventReceiver eventReceiver) {
+        this.observers.remove(eventReceiver);
+    }
+
+    @Override
+    public void sendEvent(Event event) {
+        boolean released = releasedByObservers();
+        for (EventReceiver observer : this.observers) {
+            observer.handleEvent(event);
+        }
+        if (!released) {
+            event.release();
+        }
+    }
+
+    @Override
+    public void sendEvents(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        boolean released = releasedByObservers();
+        for (EventReceiver observer : this.observers) {
+            observer.handleEvents(events);
+        }
+        if (!released) {
+            for (Event event : events) {
+                event.release();
+            }
+        }
+    }
+
+    /**
+     * Returns whether any of the EventReceivers listening releases the Events it is given. Checked before sending,
+     * since an Event may be released and reused as soon as such a receiver has it.
+     * @return True if the Events sent will be released for this OrderIntake.
+     */
+    private boolean releasedByObservers() {
+        for (EventReceiver observer : this.observers) {
+            if (observer.releasesEvents()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,237 @@
+import java.util.Arrays;
+
+/**
+ * One line of an Order: a MenuItem as it was ordered, along with any changes the customer asked for, such as
+ * "+1 lettuce".
+ *
+ * A line only refers to the shared MenuItem from the Menu and stores the changes to its recipe, so an uncustomized
+ * line costs a few fields no matter how large the recipe is. The full recipe of a customized line is only worked out
+ * when something asks for it.
+ */
+public class OrderLine {
+    // Used to generate a unique id for each line, even across restarts.
+    final private static IdAllocator ids = IdAllocator.forType("OrderLine");
+
+    private long id;
+    // The shared MenuItem this line is for. It is never changed by the line.
+    private MenuItem item;
+    // The changes to the MenuItem's recipe, as parallel arrays of Inventory ids and amounts added, or null if the line
+    // has not been customized. Amounts are negative for Ingredients taken out.
+    private int[] deltaIds;
+    private int[] deltaAmounts;
+    private boolean payed;
+    // Whether the line was voided rather than paid for, for example because it was sent back.
+    private boolean voided;
+
+    /**
+     * Creates a new, uncustomized line for the specified MenuItem.
+     * @param item The MenuItem that was ordered.
+     */
+    public OrderLine(MenuItem item) {
+        this.id = OrderLine.ids.nextId();
+        this.item = item;
+        this.payed = false;
+    }
+
+    /**
+     * Recreates a line that was saved, keeping its id and changes.
+     * @param id The id of the line.
+     * @param item The MenuItem that was ordered.
+     * @param deltaIds The ids of the Ingredients changed, or null if the line was not customized.
+     * @param deltaAmounts The amount of each Ingredient added, or null if the line was not customized.
+     * @param payed Whether the line has been paid for.
+     * @param voided Whether the line has been voided.
+     */
+    OrderLine(long id, MenuItem item, int[] deltaIds, int[] deltaAmounts, boolean payed, boolean voided) {
+        this.id = id;
+        this.item = item;
+        this.deltaIds = deltaIds;
+        this.deltaAmounts = deltaAmounts;
+        this.payed = payed;
+        this.voided = voided;
+    }
+
+    /**
+     * Returns the id of this line. Line ids are unique across all Orders.
+     * @return The id.
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * Returns the shared MenuItem that this line is for, without any customization.
+     * @return The MenuItem.
+     */
+    public MenuItem getMenuItem() {
+        return this.item;
+    }
+
+    /**
+     * Add specific ingredients to this line.
+     * @param ingredientId Inventory id of the Ingredient to be added.
+     * @param amount Amount of this ingredient to be added.
+     */
+    public void addIngredient(int ingredientId, int amount) {
+        if (this.deltaIds == null) {
+            this.deltaIds = new int[0];
+            this.deltaAmounts = new int[0];
+        }
+        int index = 0;
+        while (index < this.deltaIds.length && this.deltaIds[index] != ingredientId) {
+            index++;
+        }
+        if (index == this.deltaIds.length) {
+            this.deltaIds = Arrays.copyOf(this.deltaIds, index + 1);
+            this.deltaAmounts = Arrays.copyOf(this.deltaAmounts, index + 1);
+            this.deltaIds[index] = ingredientId;
+        }
+        this.deltaAmounts[index] += amount;
+    }
+
+    /**
+     * Remove specific ingredients from this line.
+     * @param ingredientId Inventory id of the Ingredient to be removed.
+     * @param amount Amount of this ingredient to be removed.
+     */
+    public void removeIngredient(int ingredientId, int amount) {
+        addIngredient(ingredientId, -amount);
+    }
+
+    /**
+     * Returns whether this line has been changed from its MenuItem's recipe.
+     * @return True if the line has been customized.
+     */
+    public boolean isCustomized() {
+        return this.deltaIds != null;
+    }
+
+    /**
+     * Returns the Inventory ids of the Ingredients needed to make this line. For an uncustomized line this is the
+     * MenuItem's own array, so it must not be modified.
+     * @return The ids of the Ingredients.
+     */
+    public int[] getIngredientIds() {
+        if (this.deltaIds == null) {
+            return this.item.getIngredientIds();
+        }
+        int[] baseIds = this.item.getIngredientIds();
+        int[] resolved = Arrays.copyOf(baseIds, baseIds.length + this.deltaIds.length);
+        int count = baseIds.length;
+        for (int deltaId : this.deltaIds) {
+            if (indexOf(baseIds, deltaId) == -1) {
+                resolved[count++] = deltaId;
+            }
+        }
+        return Arrays.copyOf(resolved, count);
+    }
+
+    /**
+     * Returns the amount of each Ingredient needed to make this line, in the same order as getIngredientIds(). For an
+     * uncustomized line this is the MenuItem's own array, so it must not be modified.
+     * @return The amounts of the Ingredients.
+     */
+    public int[] getQuantities() {
+        if (this.deltaIds == null) {
+            return this.item.getQuantities();
+        }
+        int[] resolvedIds = getIngredientIds();
+        int[] baseIds = this.item.getIngredientIds();
+        int[] quantities = Arrays.copyOf(this.item.getQuantities(), resolvedIds.length);
+        for (int i = 0; i < this.deltaIds.length; i++) {
+            int index = indexOf(resolvedIds, this.deltaIds[i]);
+            // An Ingredient can not be taken out more times than the recipe has it.
+            quantities[index] = Math.max(quantities[index] + this.deltaAmounts[i], 0);
+        }
+        return quantities;
+    }
+
+    /**
+     * Returns the ids of the Ingredients changed from the MenuItem's recipe, in the same order as getDeltaAmounts().
+     * @return The ids, or null if the line has not been customized.
+     */
+    int[] getDeltaIds() {
+        return this.deltaIds;
+    }
+
+    /**
+     * Returns the amount of each changed Ingredient added to the MenuItem's recipe, negative if it was taken out.
+     * @return The amounts, or null if the line has not been customized.
+     */
+    int[] getDeltaAmounts() {
+        return this.deltaAmounts;
+    }
+
+    private static int indexOf(int[] ingredientIds, int ingredientId) {
+        for (int i = 0; i < ingredientIds.length; i++) {
+            if (ingredientIds[i] == ingredientId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Setter that determinates if this line was payed or not.
+     * @param x Boolean Payed
+     */
+    public void setPayed(boolean x) {
+        this.payed = x;
+    }
+
+    /**
+     * Getter to see if this line was payed or not.
+     * @return Boolean Payed
+     */
+    public boolean getPayed() {
+        return this.payed;
+    }
+
+    /**
+     * Marks this line as voided, so it is settled without being paid for.
+     */
+    public void setVoided() {
+        this.voided = true;
+    }
+
+    /**
+     * Returns whether this line was voided rather than paid for.
+     * @return True if the line was voided.
+     */
+    public boolean isVoided() {
+        return this.voided;
+    }
+
+    /**
+     * Returns whether nothing is left to pay on this line, because it was either paid for or voided.
+     * @return True if the line is settled.
+     */
+    public boolean isSettled() {
+        return this.payed || this.voided;
+    }
+
+    /**
+     * Getter for the cost of this line.
+     * @return Cost of this line.
+     */
+    public int getCost() {
+        return this.item.getCost();
+    }
+
+    /**
+     * Getter for the name of this line's MenuItem.
+     * @return Name of the MenuItem.
+     */
+    public String getName() {
+        return this.item.getName();
+    }
+
+    /**
+     * toString function prints the name of the dish.
+     * @return String name of the dish.
+     */
+    @Override
+    public String toString() {
+        return this.item.getName();
+    }
+}
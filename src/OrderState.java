@@ -0,0 +1,19 @@
+/**
+ * The states that an Order goes through in the Restaurant.
+ */
+public enum OrderState {
+    // Sent to the kitchen, but not yet claimed by a Chef.
+    PLACED,
+    // Claimed by a Chef, who is preparing it.
+    CLAIMED,
+    // Prepared and waiting for its Server to bring it out.
+    READY,
+    // Brought out to the table.
+    SERVED,
+    // Every item has been paid for.
+    PAID,
+    // Sent back by the table.
+    RETURNED,
+    // Never sent to the kitchen, because there were not enough Ingredients.
+    REJECTED,
+}
@@ -1,5 +1,10 @@
 import java.util.Map;
 
 public interface Receiver{
-    void addToInventory(Map<String, Integer> map);
+    /**
+     * Adds a delivery of Ingredients to the Inventory.
+     * @param map Map from the name of each delivered Ingredient to the amount delivered.
+     * @return Map from the name of each delivered Ingredient to the result of receiving it.
+     */
+    Map<String, DeliveryResult> addToInventory(Map<String, Integer> map);
 }
\ No newline at end of file
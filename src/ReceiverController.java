@@ -1,10 +1,11 @@
 //import com.sun.webkit.dom.RectImpl;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import java.util.ArrayList;
 import java.util.HashMap;
 
-public class ReceiverController {
+public class ReceiverController implements StockListener {
     @FXML
     private ComboBox<String> employeeComboBox;
     @FXML
@@ -55,7 +56,23 @@ public class ReceiverController {
 
     public void setCurrEmployee(){
         String rName = ((ComboBox) employeeComboBox).getSelectionModel().getSelectedItem().toString();
+        if (currEmployee != null) {
+            currEmployee.getInventory().removeStockListener(this);
+        }
         currEmployee = (Employee) employees.get(rName);
         refreshButton.disableProperty().setValue(false);
+        // Keep the list up to date as Ingredients run low or are restocked, instead of waiting for a refresh.
+        currEmployee.getInventory().addStockListener(this);
+        refresh();
+    }
+
+    @Override
+    public void lowStock(Ingredient ingredient) {
+        Platform.runLater(this::refresh);
+    }
+
+    @Override
+    public void restocked(Ingredient ingredient) {
+        Platform.runLater(this::refresh);
     }
 }
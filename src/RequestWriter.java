@@ -0,0 +1,109 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes restock requests to the requests file on a background thread, so that whoever triggers a request never waits
+ * on file I/O.
+ *
+ * Requests are collected into batches. A batch is written once it holds BATCH_SIZE requests, or FLUSH_INTERVAL_MS
+ * after its first request arrived, whichever comes first. Each request is written on its own line.
+ */
+public class RequestWriter {
+
+    // The maximum number of requests that can be waiting to be written.
+    final private static int QUEUE_CAPACITY = 1024;
+    // The number of requests that causes a batch to be written straight away.
+    final private static int BATCH_SIZE = 64;
+    // The longest a request waits before its batch is written.
+    final private static long FLUSH_INTERVAL_MS = 1000;
+
+    private String fileName;
+    private BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private Thread writer;
+
+    /**
+     * Creates a RequestWriter that appends to the specified file, and starts its background thread.
+     * @param fileName The name of the file to write requests to.
+     */
+    public RequestWriter(String fileName) {
+        this.fileName = fileName;
+        this.writer = new Thread(this::writeLoop, "Request writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a request to be written. This never blocks.
+     * @param request The line of text to write.
+     * @return True if the request was queued, false if the queue is full.
+     */
+    public boolean submit(String request) {
+        return queue.offer(request);
+    }
+
+    /**
+     * Writes any requests that are still waiting, and stops the background thread.
+     */
+    public void close() {
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Run by the background thread: collects requests into batches and writes them.
+     */
+    private void writeLoop() {
+        ArrayList<String> batch = new ArrayList<>(BATCH_SIZE);
+        long deadline = 0;
+        while (true) {
+            try {
+                String request;
+                if (batch.isEmpty()) {
+                    request = queue.take();
+                    deadline = System.currentTimeMillis() + FLUSH_INTERVAL_MS;
+                } else {
+                    request = queue.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                }
+                if (request != null) {
+                    batch.add(request);
+                    queue.drainTo(batch, BATCH_SIZE - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // Closing: write everything that is left, then stop.
+                queue.drainTo(batch);
+                write(batch);
+                return;
+            }
+            if (batch.size() >= BATCH_SIZE || System.currentTimeMillis() >= deadline) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Appends a batch of requests to the file, one per line.
+     * @param batch The requests to write.
+     */
+    private void write(ArrayList<String> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try (PrintWriter output = new PrintWriter(new FileWriter(fileName, true))) {
+            for (String request : batch) {
+                output.println(request);
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
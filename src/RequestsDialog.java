@@ -5,8 +5,6 @@ import javafx.scene.control.TextArea;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 
-import java.util.ArrayList;
-
 /**
  * A Dialog that displays Ingredients that need to be ordered. It allows users to copy and paste the required
  * information into their E-Mails.
@@ -64,15 +62,11 @@ public class RequestsDialog extends Dialog {
      * @return The String representation of the Ingredients to request.
      */
     private String getRequests() {
-        ArrayList<Ingredient> ingredients = this.inventory.getStock();
-        String text = "";
-        for (Ingredient ingredient : ingredients) {
-            if (ingredient.getAmount() <= ingredient.getRestockThreshold()) {
-                text += ingredient.getName() + ": " + ingredient.getRequestAmount();
-                text += "\n";
-            }
+        StringBuilder text = new StringBuilder();
+        for (Ingredient ingredient : this.inventory.getLowStockIngredients()) {
+            text.append(ingredient.getName()).append(": ").append(ingredient.getAmountToRequest()).append("\n");
         }
-        return text;
+        return text.toString();
     }
 
     @Override
@@ -10,13 +10,23 @@ import java.util.List;
 
 /**
  * Class that represents a Restaurant. It has Employees, Bills, an Inventory, and a Menu.
+ *
+ * A Restaurant may be one of several branches. Each branch keeps its files in its own directory and can fall back on
+ * a shared Commissary when its Inventory runs short.
  */
 public class Restaurant extends Application implements EventReceiver {
     // The file to read Employees in from.
     final private static String EMPLOYEE_FILE = "employees.txt";
+    // The file that the Menu is saved to.
+    final private static String MENU_FILE = "MenuSerialize.txt";
+    // The number of Events the EventBus can hold before publishers have to wait.
+    final private static int EVENT_BUS_SIZE = 1024;
+    // The system property that picks how the EventBus's consumers wait for Events, and the default.
+    final private static String WAIT_STRATEGY_PROPERTY = "restaurant.waitStrategy";
+    final private static String DEFAULT_WAIT_STRATEGY = "blocking";
 
-    // The number of Tables in the Restaurant.
-    private int numTables = 20;
+    // The directory that this Restaurant's files are kept in.
+    private File directory;
 
     // Contains the list of all employees currently working according to the configuration file.
     ArrayList<Employee> employees = new ArrayList<>(0);
@@ -24,26 +34,93 @@ public class Restaurant extends Application implements EventReceiver {
     Inventory inventory;
     // Contains the Menu that is going to be loaded from a configuration file.
     Menu ourMenu;
-    // There are a total of 20 bills in our restaurant because it only has 20 tables.
-    Bill[] bills;
+    // How many portions of each MenuItem can be made with the current stock.
+    ServableCounts servableCounts;
+    // Keeps track of every Order and the state it is in.
+    OrderBook orderBook = new OrderBook();
+    // The sections and tables of the Restaurant, and the Bills of the tables that have guests.
+    FloorPlan floorPlan;
+    // Takes in batches of Orders from kiosks and online ordering.
+    OrderIntake orderIntake;
+    // Decides which Chef makes each Order.
+    KitchenScheduler kitchen = new KitchenScheduler();
 
+    // Keeps the Orders and Bills across restarts.
+    private EventStore eventStore;
+
+    // Writes a line about every Event to the log, on its own thread.
     private EventLogger eventLogger;
+    // Hands Events to the Restaurant's bookkeeping, the kitchen, the floor staff and the log, each on its own thread.
+    private EventBus eventBus;
+    // Passes each Event on to the floor staff that subscribed to it.
+    private EventRouter floorRouter = new EventRouter();
+    // Whether stop has been called.
+    private boolean stopped = false;
 
     /**
      * Constructor for the class Restaurant. It performs the Employee setup by calling setupEmployees, loading the employees from a configuration
-     * file and it also initializes the Bills by calling newBills.
+     * file and it also loads the floor plan that the Bills are kept in.
      */
     public Restaurant() {
+        this(new File("."), null);
+    }
+
+    /**
+     * Creates a branch Restaurant that keeps its files in the specified directory.
+     * @param directory The directory of the branch.
+     * @param commissary The Commissary to get Ingredients from when the branch runs short, or null if there is none.
+     */
+    public Restaurant(File directory, Commissary commissary) {
+        this.directory = directory;
         deserializeInventory();
+        this.inventory.setCommissary(commissary);
         deserializeMenu();
+        servableCounts = new ServableCounts(ourMenu, inventory);
         setupEmployees();
-        newBills();
-        setupControllers();
-        eventLogger = new EventLogger();
+        floorPlan = new FloorPlan(directory, orderBook);
+        orderIntake = new OrderIntake(inventory, floorPlan);
+        orderIntake.addListener(this);
+        eventStore = new EventStore(directory, ourMenu, employees, orderBook, kitchen, floorPlan);
+        eventStore.recover(this::apply);
+        floorPlan.setEventStore(eventStore);
+        eventLogger = new EventLogger(directory);
+        setupEventBus();
+    }
+
+    /**
+     * Sets up the EventBus. The Restaurant's own records are updated first, and the kitchen and the floor staff only
+     * see an Event once that is done, so the lists they read are up to date. Each Employee only gets the Events they
+     * subscribed to. The log is written independently.
+     */
+    private void setupEventBus() {
+        eventBus = new EventBus(EVENT_BUS_SIZE,
+                WaitStrategy.named(System.getProperty(WAIT_STRATEGY_PROPERTY, DEFAULT_WAIT_STRATEGY)));
+        EventRouter kitchenRouter = new EventRouter();
+        for (Employee employee : this.employees) {
+            employee.subscribe(employee instanceof Chef ? kitchenRouter : floorRouter);
+        }
+        EventBus.Consumer bookkeeping = eventBus.addConsumer("bookkeeping", this::record);
+        eventBus.addConsumer("kitchen", kitchenRouter, bookkeeping);
+        eventBus.addConsumer("floor", this::deliverToFloor, bookkeeping);
+        eventBus.addConsumer("logging", eventLogger::log);
+        eventBus.start();
+    }
+
+    /**
+     * Passes an Event on to the floor staff. A rejected Order is then taken out of the OrderBook, since its Server has
+     * been told and nothing more can happen to it.
+     * @param event The Event.
+     */
+    private void deliverToFloor(Event event) {
+        floorRouter.handleEvent(event);
+        if (event.getEventType() == EventType.UNABLE_TO_COMPLETE && event.getOrder() != null) {
+            orderBook.forget(event.getOrder().getId());
+        }
     }
 
     @Override
     public void start(Stage primaryStage) throws Exception{
+        setupControllers();
         Parent root = FXMLLoader.load(getClass().getResource("EmployeeView.fxml"));
         primaryStage.setTitle("Restaurant");
         primaryStage.setScene(new Scene(root, 600, 420));
@@ -52,18 +129,10 @@ public class Restaurant extends Application implements EventReceiver {
 
 
     /**
-     * Deserialize the Inventory
+     * Deserialize the Inventory from its latest snapshot and journal.
      */
     private void deserializeInventory(){
-        try{
-            ObjectInputStream in = new ObjectInputStream(new FileInputStream("Inventory.txt"));
-            this.inventory = (Inventory) in.readObject();
-            in.close();
-        }
-        catch(Exception e){
-            this.inventory = new Inventory();
-            e.printStackTrace();
-        }
+        this.inventory = Inventory.recover(this.directory);
     }
 
     /**
@@ -71,7 +140,7 @@ public class Restaurant extends Application implements EventReceiver {
      */
     private void deserializeMenu(){
         try{
-            ObjectInputStream in = new ObjectInputStream(new FileInputStream("MenuSerialize.txt"));
+            ObjectInputStream in = new ObjectInputStream(new FileInputStream(new File(this.directory, MENU_FILE)));
             this.ourMenu = (Menu) in.readObject();
             in.close();
         }
@@ -81,67 +150,116 @@ public class Restaurant extends Application implements EventReceiver {
         }
     }
 
+    /**
+     * Saves everything and closes the Restaurant's files. Called by JavaFX when the GUI is closed, or when the program
+     * shuts down for a branch without a GUI. Does nothing if the Restaurant has already been stopped.
+     * @throws IOException If the Menu could not be saved.
+     */
     @Override
-    public void stop() throws IOException {
-        FileOutputStream fout = new FileOutputStream("Inventory.txt");
-        ObjectOutputStream out = new ObjectOutputStream(fout);
-        out.writeObject(inventory);
-        out.flush();
+    public synchronized void stop() throws IOException {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        eventBus.close();
+        eventStore.close();
+        eventLogger.close();
+        inventory.checkpoint();
+        inventory.close();
 
-        fout = new FileOutputStream("MenuSerialize.txt");
-        out = new ObjectOutputStream(fout);
+        FileOutputStream fout = new FileOutputStream(new File(this.directory, MENU_FILE));
+        ObjectOutputStream out = new ObjectOutputStream(fout);
         out.writeObject(ourMenu);
-        out.flush();
+        out.close();
     }
 
 
     @Override
     public void handleEvent(Event event) {
-        String message = event.getEventType().toString();
-        eventLogger.logInfo(message);
-        // Send Event to all Employees.
-        for (Employee employee : this.getEmployees()) {
-            employee.handleEvent(event);
+        // Returns as soon as the Event is on the bus. It reaches the Employees on the bus's threads.
+        eventBus.publish(event);
+    }
+
+    /**
+     * Returns true, since the EventBus releases every Event once all of its consumers have handled it.
+     * @return True.
+     */
+    @Override
+    public boolean releasesEvents() {
+        return true;
+    }
+
+    /**
+     * Logs an Event and applies it to the Restaurant's own records. Runs on the EventBus's bookkeeping thread, before
+     * the Employees see the Event.
+     * @param event The Event.
+     */
+    private void record(Event event) {
+        eventStore.append(event);
+        apply(event);
+        if (eventStore.isSnapshotDue()) {
+            eventStore.snapshot();
         }
+    }
+
+    /**
+     * Applies an Event to the Restaurant's own records, either as it happens or when it is replayed on startup.
+     * @param event The Event.
+     */
+    private void apply(Event event) {
+        orderBook.handleEvent(event);
+        kitchen.handleEvent(event);
         if (event.getEventType() == EventType.ORDER){
-            bills[event.getOrder().getTableNumber() - 1].addToBill(event.getOrder());
+            floorPlan.addToBill(event.getOrder());
         }
     }
 
     /**
-     * Function to initialize the Bills when the Restaurant opens. This initializes 20 Bills because our restaurant
-     * only has 20 tables.
+     * Handles a batch of Events by publishing them to the EventBus together.
+     * @param events The Events.
      */
-    private void newBills(){
-        bills = new Bill[numTables];
-        for(int i = 0; i < numTables; i++){
-            bills[i] = new Bill(i + 1);
-        }
+    @Override
+    public void handleEvents(List<Event> events) {
+        eventBus.publishAll(events);
     }
 
+    /**
+     * Returns the OrderIntake that batches of Orders can be submitted to.
+     * @return The OrderIntake.
+     */
+    public OrderIntake getOrderIntake() {
+        return this.orderIntake;
+    }
 
     /**
-     * Setups the controllers for the various GUI's in the restaurant
+     * Setups the controllers for the various GUI's in the restaurant. The controllers keep what they show in static
+     * fields, so only one Restaurant in a program can have the GUI: the one launched as the JavaFX Application, whose
+     * start method calls this. Branches that are only created never replace it.
      */
-    public void setupControllers(){
+    private void setupControllers(){
         ChefController.setEmployeesList(employees);
         ServerController.setEmployeesList(employees);
         ReceiverController.setEmployeesList(employees);
-        ServerController.setMenuItemsList(ourMenu.getMenuItems());
-        ServerController.setIngredientStock(inventory.getIngredients());
-        TableController.loadBills(bills);
+        ServerController.setMenu(ourMenu);
+        ServerController.setServableCounts(servableCounts);
+        ServerController.setInventory(inventory);
+        TableController.setFloorPlan(floorPlan);
+        ServerController.setFloorPlan(floorPlan);
         ManagerController.setEmployeesList(employees);
-        ManagerController.setMenuItemsList(ourMenu.getMenuItems());
+        ManagerController.setMenu(ourMenu);
+        ManagerController.setKitchen(kitchen);
         ManagerController.setIngredientList(inventory.getStock());
     }
 
     /**
-     * Set up and store the Employees stored in the configuration file.
+     * Set up and store the Employees stored in the configuration file. Each Employee's id is the number of their line
+     * in the file, so ids stay the same across restarts as long as the file is only added to at the end.
      */
     private void setupEmployees() {
         try {
-            BufferedReader reader = new BufferedReader(new FileReader(EMPLOYEE_FILE));
+            BufferedReader reader = new BufferedReader(new FileReader(new File(this.directory, EMPLOYEE_FILE)));
             String line = reader.readLine();
+            long id = 0;
             while (line != null) {
                 String[] data = line.split(",");
                 String name = data[0].trim();
@@ -149,14 +267,15 @@ public class Restaurant extends Application implements EventReceiver {
 
                 // Determine the correct type and create the Employee accordingly.
                 if (type.equals("Manager")) {
-                    this.employees.add(new Manager(name, this.ourMenu, this.inventory));
+                    this.employees.add(new Manager(id, name, this.ourMenu, this.inventory, this.orderBook));
                 } else if (type.equals("Chef")) {
-                    this.employees.add(new Chef(name, this.ourMenu, this.inventory));
+                    this.employees.add(new Chef(id, name, this.ourMenu, this.inventory, this.orderBook, this.kitchen));
                 } else if (type.equals("Server")) {
-                    this.employees.add(new Server(name, this.ourMenu, this.inventory));
+                    this.employees.add(new Server(id, name, this.ourMenu, this.inventory, this.orderBook));
                 }
                 // Move on to the next line.
                 line = reader.readLine();
+                id++;
             }
             reader.close();
 
@@ -0,0 +1,199 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps count of how many portions of each MenuItem the Inventory has enough Ingredients to make, so Servers can see
+ * which MenuItems are sold out before adding them to an Order.
+ *
+ * Alongside the counts, it keeps an index from each Ingredient to the MenuItems that use it. When an Ingredient
+ * changes, only the MenuItems that use it are recounted. The index is rebuilt whenever a new version of the Menu is
+ * published.
+ */
+public class ServableCounts implements StockListener {
+
+    private Menu menu;
+    private Inventory inventory;
+    // The index for the current version of the Menu. Replaced as a whole, so readers always see a matching set.
+    private volatile Index index;
+
+    /**
+     * A count of the portions of a MenuItem, along with the version of the Inventory it was counted from.
+     */
+    private static class Count {
+        private final long version;
+        private final int portions;
+
+        private Count(long version, int portions) {
+            this.version = version;
+            this.portions = portions;
+        }
+    }
+
+    /**
+     * Everything worked out from one version of the Menu.
+     */
+    private static class Index {
+        private final MenuView menuView;
+        private final MenuItem[] items;
+        // Map from MenuItem name to its position in items.
+        private final HashMap<String, Integer> positions = new HashMap<>();
+        // For each Ingredient id, the positions of the MenuItems that use it.
+        private final int[][] itemsByIngredient;
+        // The number of portions of each MenuItem that can be made, by position.
+        private final AtomicReferenceArray<Count> counts;
+
+        private Index(MenuView menuView, int numIngredients) {
+            this.menuView = menuView;
+            this.items = menuView.getMenuItems().values().toArray(new MenuItem[0]);
+            this.counts = new AtomicReferenceArray<>(items.length);
+
+            ArrayList<ArrayList<Integer>> users = new ArrayList<>();
+            for (int i = 0; i < numIngredients; i++) {
+                users.add(new ArrayList<>());
+            }
+            for (int position = 0; position < items.length; position++) {
+                positions.put(items[position].getName(), position);
+                for (int id : items[position].getIngredientIds()) {
+                    while (id >= users.size()) {
+                        users.add(new ArrayList<>());
+                    }
+                    users.get(id).add(position);
+                }
+            }
+            this.itemsByIngredient = new int[users.size()][];
+            for (int id = 0; id < users.size(); id++) {
+                itemsByIngredient[id] = new int[users.get(id).size()];
+                for (int i = 0; i < itemsByIngredient[id].length; i++) {
+                    itemsByIngredient[id][i] = users.get(id).get(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the counts for a Menu, and keeps them up to date as the Inventory changes.
+     * @param menu The Menu to count the MenuItems of.
+     * @param inventory The Inventory that the Menu's MenuItems are made from.
+     */
+    public ServableCounts(Menu menu, Inventory inventory) {
+        this.menu = menu;
+        this.inventory = inventory;
+        this.index = buildIndex();
+        inventory.addStockListener(this);
+    }
+
+    /**
+     * Builds the index for the current version of the Menu and counts every MenuItem.
+     * @return The index.
+     */
+    private Index buildIndex() {
+        Index built = new Index(menu.getView(), inventory.size());
+        for (int position = 0; position < built.items.length; position++) {
+            long version = inventory.getVersion();
+            built.counts.set(position, new Count(version, count(built.items[position])));
+        }
+        return built;
+    }
+
+    /**
+     * Returns the index for the current version of the Menu, rebuilding it first if the Menu has changed.
+     * @return The index.
+     */
+    private Index currentIndex() {
+        Index current = this.index;
+        if (current.menuView != menu.getView()) {
+            synchronized (this) {
+                current = this.index;
+                if (current.menuView != menu.getView()) {
+                    current = buildIndex();
+                    this.index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Works out how many portions of a MenuItem can be made with the current stock.
+     * @param item The MenuItem.
+     * @return The number of portions, or Integer.MAX_VALUE if the MenuItem needs no Ingredients.
+     */
+    private int count(MenuItem item) {
+        int[] ids = item.getIngredientIds();
+        int[] quantities = item.getQuantities();
+        int portions = Integer.MAX_VALUE;
+        for (int i = 0; i < ids.length; i++) {
+            if (quantities[i] > 0) {
+                portions = Math.min(portions, inventory.getIngredient(ids[i]).getAmount() / quantities[i]);
+            }
+        }
+        return portions;
+    }
+
+    /**
+     * Recounts only the MenuItems that use the Ingredient that changed. This runs on the thread that changed the
+     * stock, so it takes no lock, and changes to different Ingredients do not wait for each other.
+     * @param ingredient The Ingredient that changed.
+     */
+    @Override
+    public void stockChanged(Ingredient ingredient) {
+        Index current = currentIndex();
+        int id = ingredient.getId();
+        if (id < 0 || id >= current.itemsByIngredient.length) {
+            return;
+        }
+        for (int position : current.itemsByIngredient[id]) {
+            recount(current, position);
+        }
+    }
+
+    /**
+     * Counts a MenuItem again and stores the count, unless a count from stock at least as new is already stored.
+     * The Inventory's version is read before counting, so the count is from stock at least that new. Threads recounting
+     * at the same time then cannot replace a newer count with an older one, and the thread told about the last change
+     * always stores a count from after it, or finds one already stored.
+     * @param current The index to store the count in.
+     * @param position The position of the MenuItem.
+     */
+    private void recount(Index current, int position) {
+        long version = inventory.getVersion();
+        Count counted = new Count(version, count(current.items[position]));
+        Count stored = current.counts.get(position);
+        while (stored.version < version) {
+            if (current.counts.compareAndSet(position, stored, counted)) {
+                return;
+            }
+            stored = current.counts.get(position);
+        }
+    }
+
+    @Override
+    public void lowStock(Ingredient ingredient) {
+    }
+
+    @Override
+    public void restocked(Ingredient ingredient) {
+    }
+
+    /**
+     * Returns how many portions of the specified MenuItem can be made with the current stock. This does not wait on
+     * changes to the Inventory.
+     * @param name The name of the MenuItem.
+     * @return The number of portions, or 0 if there is no MenuItem with that name.
+     */
+    public int getServableCount(String name) {
+        Index current = currentIndex();
+        Integer position = current.positions.get(name);
+        return position == null ? 0 : current.counts.get(position).portions;
+    }
+
+    /**
+     * Returns whether there is not enough stock to make even one portion of the specified MenuItem.
+     * @param name The name of the MenuItem.
+     * @return True if the MenuItem is sold out.
+     */
+    public boolean isSoldOut(String name) {
+        return getServableCount(name) <= 0;
+    }
+}
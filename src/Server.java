@@ -1,5 +1,4 @@
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -8,15 +7,14 @@ import java.util.Map;
  */
 public class Server extends Employee implements Receiver {
     private Order currOrder;
-    private ArrayList<Order> readyToServe = new ArrayList<>();
-    private ArrayList<Order> failedOrders = new ArrayList<>();
 
     /**
      * Constructor for Server. Create a new Server with the provided name.
+     * @param id The id of the Server, which stays the same across restarts.
      * @param name The name of the Server.
      */
-    public Server(String name, Menu ourMenu, Inventory inventory) {
-        super(name, ourMenu, inventory);
+    public Server(long id, String name, Menu ourMenu, Inventory inventory, OrderBook orderBook) {
+        super(id, name, ourMenu, inventory, orderBook);
     }
 
     /**
@@ -24,8 +22,9 @@ public class Server extends Employee implements Receiver {
      * @param tableNum The table number of the new order.
      */
     public void createNewOrder(int tableNum){
-        currOrder = new Order(tableNum);
+        currOrder = new Order(tableNum, ourMenu.getView());
         currOrder.setServerName(this.getName());
+        currOrder.setServerId(this.getId());
     }
 
     /**
@@ -37,58 +36,38 @@ public class Server extends Employee implements Receiver {
     }
 
     /**
-     * Returns the <index> item of the curr order
-     * @param index the position of the item to be returned in the list
-     * @return the item in the list at index <index>
+     * Returns the version of the Menu that the current order is being taken from.
+     * @return The Menu of the current order, or null if there is no current order.
      */
-    public MenuItem getOrderItem(int index){
-        return currOrder.getItems().get(index);
+    public MenuView getOrderMenu(){
+        return currOrder == null ? null : currOrder.getMenu();
     }
 
     /**
-     * Completes the order and notifies the appropriate recipients that a new order has been ordered.
+     * Returns the <index> item of the curr order
+     * @param index the position of the item to be returned in the list
+     * @return the item in the list at index <index>
      */
-    public void finalizeOrder(){
-        if (canMake(currOrder)) {
-            Event orderEvent = new Event(EventType.ORDER);
-            orderEvent.addOrder(currOrder);
-            orderEvent.setServer(this.getName());
-            this.sendEvent(orderEvent);
-
-            for (MenuItem MI : currOrder.getUnpaidItems()) {
-                for (Ingredient ingredient : MI.getIngredients().keySet()) {
-                    ingredient.removeStock(MI.getIngredients().get(ingredient));
-                }
-            }
-        }
-        else {
-            Event e = new Event(EventType.UNABLE_TO_COMPLETE);
-            e.addOrder(currOrder);
-            e.setServer(this.getName());
-            sendEvent(e);
-        }
+    public OrderLine getOrderItem(int index){
+        return currOrder.getItems().get(index);
     }
 
     /**
-     * Verifies the current order can be make with the ingredients in stock.
-     * @param order order to check
-     * @return true iff the order can be made
+     * Completes the order and notifies the appropriate recipients that a new order has been ordered. The Ingredients
+     * for the order are reserved from the Inventory all at once, so the order is only sent if all of them are
+     * available.
+     * @return True if the order was sent to the kitchen, false if there were not enough Ingredients.
      */
-    private boolean canMake(Order order){
-        MenuItem all = new MenuItem("all", 0, new HashMap<>());
-
-        for (MenuItem MI : order.getUnpaidItems()){
-            for (Ingredient ingredient : MI.getIngredients().keySet()){
-                all.addIngredient(ingredient, MI.getIngredients().get(ingredient));
-            }
+    public boolean finalizeOrder(){
+        boolean reserved = inventory.reserve(currOrder);
+        Event e = Event.claim(reserved ? EventType.ORDER : EventType.UNABLE_TO_COMPLETE);
+        e.addOrder(currOrder);
+        e.setServer(this.getId(), this.getName());
+        if (!reserved) {
+            e.setRecipient(this.getId());
         }
-
-        for (Ingredient ing : all.getIngredients().keySet()){
-            if (all.getIngredients().get(ing) > ing.getAmount()){
-                return false;
-            }
-        }
-        return true;
+        sendEvent(e);
+        return reserved;
     }
 
 
@@ -96,13 +75,10 @@ public class Server extends Employee implements Receiver {
      * Restocks the given set of ingredients and their quantities to the inventory.
      * @param map Map of the ingredients to be restocked in <String, Integer> form,
      *           where the String key value is the name of the ingredient.
+     * @return The result of restocking each ingredient.
      */
-    public void addToInventory(Map<String, Integer> map){
-        for(Map.Entry<String, Integer> entry : map.entrySet()){
-            String ingredientName = entry.getKey();
-            Integer quantity = entry.getValue();
-            inventory.addIngredient(ingredientName, quantity);
-        }
+    public Map<String, DeliveryResult> addToInventory(Map<String, Integer> map){
+        return inventory.receiveDelivery(map);
     }
 
 
@@ -111,27 +87,18 @@ public class Server extends Employee implements Receiver {
      * @param order order to be served
      */
     public void serveOrder(Order order){
-        readyToServe.remove(order);
-        Event serveEvent = new Event(EventType.SERVE);
-        serveEvent.addOrder(currOrder);
-        serveEvent.setServer(this.getName());
+        Event serveEvent = Event.claim(EventType.SERVE);
+        serveEvent.addOrder(order);
+        serveEvent.setServer(this.getId(), this.getName());
         this.sendEvent(serveEvent);
     }
 
-    /**
-     * Returns a list of failed orders due to insufficient ingredients.
-     * @return arraylist of failed orders
-     */
-    public ArrayList<Order> getFailedOrders(){
-        return failedOrders;
-    }
-
     /**
      * Returns a list of orders ready to be served
      * @return List of orders ready to be served
      */
     public ArrayList<Order> getReadyToServe(){
-        return readyToServe;
+        return orderBook.getOrders(OrderState.READY, getName());
     }
 
     /**
@@ -143,16 +110,24 @@ public class Server extends Employee implements Receiver {
         return currOrder.getCost();
     }
 
+    /**
+     * Subscribes this Server to its own orders becoming ready or failing.
+     * @param router The EventRouter.
+     */
+    @Override
+    public void subscribe(EventRouter router) {
+        router.subscribe(EventType.ORDER_READY, getId(), this);
+        router.subscribe(EventType.UNABLE_TO_COMPLETE, getId(), this);
+    }
+
+    /**
+     * Orders ready to serve and failed orders are kept in the OrderBook, so this only tells the Server's screen that
+     * one of their orders is ready or could not be made.
+     * @param event The Event.
+     */
     @Override
     public void handleEvent(Event event) {
-        if (event.getEventType().equals(EventType.ORDER_READY)){
-            if(event.getServer().equals(this.getName())){
-                readyToServe.add(event.getOrder());
-            }
-        }
-        if (event.getEventType().equals(EventType.UNABLE_TO_COMPLETE)){
-            failedOrders.add(event.getOrder());
-        }
+        updateDisplay(event);
     }
 }
 
@@ -1,3 +1,4 @@
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -17,8 +18,12 @@ public class ServerController {
     private Button createOrderBtn, sendOrderBtn, viewOrdersBtn, addItemBtn, modifyItemBtn, ServeBtn;
 
     private Server currServer;
-    private static HashMap<String, Ingredient> ingredientStock;
-    private static HashMap<String, MenuItem> menuItems;
+    private static Inventory inventory;
+    private static Menu menu;
+    private static ServableCounts servableCounts;
+    private static FloorPlan floorPlan;
+    // Added to the name of a MenuItem in the list when there is not enough stock to make it.
+    final private static String SOLD_OUT_SUFFIX = " (sold out)";
     private static HashMap<String, Server> employees = new HashMap<>();
 
     /**
@@ -34,19 +39,35 @@ public class ServerController {
     }
 
     /**
-     * Given a Map of MenuItems, set them to the static menuItems.
-     * @param menuItems Map of Menu Items to be set.
+     * Sets the static Menu.
+     * @param menu The Restaurant's Menu.
      */
-    public static void setMenuItemsList(HashMap<String, MenuItem> menuItems){
-        ServerController.menuItems = menuItems;
+    public static void setMenu(Menu menu){
+        ServerController.menu = menu;
     }
 
     /**
-     * Sets the static stock variable.
-     * @param stock HashMap of Ingredient Name to Ingredient Object
+     * Sets the static servable counts, used to flag sold out MenuItems.
+     * @param servableCounts The servable counts of the Restaurant's Menu.
      */
-    public static void setIngredientStock(HashMap<String, Ingredient> stock){
-        ServerController.ingredientStock = stock;
+    public static void setServableCounts(ServableCounts servableCounts){
+        ServerController.servableCounts = servableCounts;
+    }
+
+    /**
+     * Sets the static FloorPlan, used to check table numbers.
+     * @param floorPlan The Restaurant's FloorPlan.
+     */
+    public static void setFloorPlan(FloorPlan floorPlan){
+        ServerController.floorPlan = floorPlan;
+    }
+
+    /**
+     * Sets the static Inventory variable.
+     * @param inventory The Inventory that Ingredients are added to MenuItems from.
+     */
+    public static void setInventory(Inventory inventory){
+        ServerController.inventory = inventory;
     }
 
     /**
@@ -62,11 +83,16 @@ public class ServerController {
     }
 
     /**
-     * Refreshes the list of Menu Items on the GUI
+     * Refreshes the list of Menu Items on the GUI. While an order is being taken, this lists the version of the Menu
+     * that the order started with.
      */
     public void setMenuItemsListView() {
         menuItemsList.getItems().clear();
-        menuItemsList.getItems().addAll(menuItems.keySet());
+        MenuView view = currServer != null && currServer.getOrderMenu() != null
+                ? currServer.getOrderMenu() : menu.getView();
+        for (String name : view.getNames()) {
+            menuItemsList.getItems().add(servableCounts.isSoldOut(name) ? name + SOLD_OUT_SUFFIX : name);
+        }
     }
 
     /**
@@ -75,7 +101,11 @@ public class ServerController {
      */
     public void setCurrServer(ActionEvent event){
         String serverName = ((ComboBox)event.getSource()).getSelectionModel().getSelectedItem().toString();
+        if (currServer != null) {
+            currServer.setDisplay(null);
+        }
         currServer = employees.get(serverName);
+        currServer.setDisplay(this::showEvent);
         createOrderBtn.setDisable(false);
         viewOrdersBtn.setDisable(false);
     }
@@ -90,12 +120,13 @@ public class ServerController {
         try {
             if (input.isPresent()) {
                 int tableNum = Integer.valueOf(input.get());
-                if (tableNum > 20 || tableNum < 1) {
-                    Alert alert = new Alert(Alert.AlertType.INFORMATION, "Please input a numeric table number between 1 and 20. ");
+                if (!floorPlan.isTable(tableNum)) {
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION, "There is no table " + tableNum + " on the floor plan. ");
                     alert.show();
                     return;
                 }
                 currServer.createNewOrder(tableNum);
+                this.setMenuItemsListView();
                 currOrderLabel.setText("Current Order: Table " + tableNum);
                 sendOrderBtn.setDisable(false);
                 addItemBtn.setDisable(false);
@@ -103,7 +134,7 @@ public class ServerController {
             }
         }
         catch(Exception e){
-            Alert alert = new Alert(Alert.AlertType.INFORMATION, "Please input a numeric table number between 1 and 20. ");
+            Alert alert = new Alert(Alert.AlertType.INFORMATION, "Please input a numeric table number. ");
             alert.show();
         }
     }
@@ -117,9 +148,19 @@ public class ServerController {
                 this.addIngredient();
                 return;
             }
-            MenuItem item = menuItems.get(menuItemsList.getSelectionModel().getSelectedItem());
-            currServer.addToOrder(item.makeCopy());
             String itemName = menuItemsList.getSelectionModel().getSelectedItem();
+            if (itemName.endsWith(SOLD_OUT_SUFFIX)) {
+                itemName = itemName.substring(0, itemName.length() - SOLD_OUT_SUFFIX.length());
+            }
+            // Check the stock as it is now, since the list may have been made before something sold out.
+            if (servableCounts.isSoldOut(itemName)) {
+                Alert alert = new Alert(Alert.AlertType.INFORMATION, itemName + " is sold out.");
+                alert.show();
+                this.setMenuItemsListView();
+                return;
+            }
+            MenuItem item = currServer.getOrderMenu().getMenuItem(itemName);
+            currServer.addToOrder(item);
             currOrderList.getItems().add(itemName);
             costLbl.setText(String.valueOf(currServer.getOrderCost()));
             modifyItemBtn.setDisable(false);
@@ -135,13 +176,13 @@ public class ServerController {
      */
     public void addIngredient(){
         String ingredientName = menuItemsList.getSelectionModel().getSelectedItem();
-        Ingredient ingredient = ingredientStock.get(ingredientName);
+        Ingredient ingredient = inventory.getIngredient(ingredientName);
 
         String menuItemName = currOrderList.getSelectionModel().getSelectedItem();
         int menuItemIndex = currOrderList.getSelectionModel().getSelectedIndex();
-        MenuItem menuItem = currServer.getOrderItem(menuItemIndex);
+        OrderLine menuItem = currServer.getOrderItem(menuItemIndex);
 
-        menuItem.addIngredient(ingredient, 1);
+        menuItem.addIngredient(ingredient.getId(), 1);
         Alert alert = new Alert(Alert.AlertType.INFORMATION, "Added 1 "
                 + ingredientName +" to the " + menuItemName);
         alert.show();
@@ -155,18 +196,32 @@ public class ServerController {
      * Finalizes the order, sending it to any observers.
      */
     public void SendOrder(){
-        int s = currServer.getFailedOrders().size();
         sendOrderBtn.setDisable(true);
         addItemBtn.setDisable(true);
+        // If there are not enough ingredients, the Server is told through an Event, which showEvent shows.
         currServer.finalizeOrder();
         currOrderList.getItems().clear();
         costLbl.setText("0");
         currOrderLabel.setText("No Current Order");
         modifyItemBtn.setDisable(true);
+    }
 
-        if (currServer.getFailedOrders().size() > s){
-            Alert alert = new Alert(Alert.AlertType.INFORMATION, "There are not enough ingredients to complete this order. ");
-            alert.show();
+    /**
+     * Called on the EventBus's thread when one of the current Server's orders is ready or could not be made, and
+     * updates the screen on the JavaFX thread. Anything needed from the Event is copied out first, since the Event is
+     * reused once this returns.
+     * @param event The Event.
+     */
+    private void showEvent(Event event) {
+        if (event.getEventType() == EventType.UNABLE_TO_COMPLETE) {
+            int tableNum = event.getOrder().getTableNumber();
+            Platform.runLater(() -> {
+                Alert alert = new Alert(Alert.AlertType.INFORMATION,
+                        "There are not enough ingredients to complete the order for table " + tableNum + ". ");
+                alert.show();
+            });
+        } else {
+            Platform.runLater(this::viewOrders);
         }
     }
 
@@ -189,7 +244,10 @@ public class ServerController {
     public void modifyItem(){
         menuItemsLbl.setText("Ingredients");
         menuItemsList.getItems().clear();
-        menuItemsList.getItems().addAll(ingredientStock.keySet());
+        // Read the names from a view, so that Ingredients added while listing them do not get in the way.
+        for (IngredientState ingredient : inventory.getView().getIngredientStates()) {
+            menuItemsList.getItems().add(ingredient.getName());
+        }
         addItemBtn.setText("Add Ingredient");
     }
 
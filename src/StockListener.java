@@ -0,0 +1,30 @@
+/**
+ * The StockListener interface. StockListeners are told whenever an Ingredient in an Inventory they are listening to
+ * drops to its restock threshold, or is restocked back above it. They can also choose to be told about every change
+ * to an Ingredient.
+ *
+ * Notifications are sent on whichever thread changed the stock, after the Inventory has released its locks. The
+ * Ingredient may have changed again by the time the listener looks at it.
+ */
+public interface StockListener {
+
+    /**
+     * Called when the amount of an Ingredient drops to or below its restock threshold.
+     * @param ingredient The Ingredient that is now low on stock.
+     */
+    void lowStock(Ingredient ingredient);
+
+    /**
+     * Called when the amount of an Ingredient rises back above its restock threshold.
+     * @param ingredient The Ingredient that is no longer low on stock.
+     */
+    void restocked(Ingredient ingredient);
+
+    /**
+     * Called whenever the amount or threshold of an Ingredient changes, before lowStock or restocked if it also
+     * crossed its threshold. Does nothing unless overridden.
+     * @param ingredient The Ingredient that changed.
+     */
+    default void stockChanged(Ingredient ingredient) {
+    }
+}
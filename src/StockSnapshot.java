@@ -0,0 +1,281 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A compact binary snapshot of the stock in an Inventory, read and updated in place through a memory-mapped file.
+ *
+ * The file is laid out as a fixed-size header, followed by a fixed-width record for every Ingredient id, followed by
+ * a dictionary of Ingredient names in id order. Since every record is the same size, changing one Ingredient only
+ * touches its own record, and loading the whole table is a single pass over the mapped file.
+ *
+ * Each record also stores the journal sequence number it was last written at, so that if a checkpoint is cut off
+ * part way through, replaying the journal will not apply a change to a record that already includes it.
+ */
+public class StockSnapshot {
+
+    // Identifies the file format.
+    final private static int MAGIC = 0x53544b31;
+    final private static int VERSION = 1;
+
+    // Header layout.
+    final private static int MAGIC_OFFSET = 0;
+    final private static int VERSION_OFFSET = 4;
+    final private static int SEQUENCE_OFFSET = 8;
+    final private static int COUNT_OFFSET = 16;
+    final private static int CAPACITY_OFFSET = 20;
+    final private static int DICTIONARY_END_OFFSET = 24;
+    final private static int HEADER_SIZE = 64;
+
+    // Record layout.
+    final private static int AMOUNT = 0;
+    final private static int THRESHOLD = 4;
+    final private static int REQUEST_AMOUNT = 8;
+    final private static int FLAGS = 12;
+    final private static int RECORD_SEQUENCE = 16;
+    final private static int RECORD_SIZE = 24;
+
+    // Set in a record's flags if a restock of the Ingredient has been requested.
+    final private static int REQUESTED = 1;
+
+    private File file;
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    private StockSnapshot(File file) throws IOException {
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "rw");
+        this.channel = raf.getChannel();
+    }
+
+    /**
+     * Opens an existing snapshot.
+     * @param file The snapshot file.
+     * @return The snapshot.
+     * @throws IOException If the file does not exist or is not a valid snapshot.
+     */
+    public static StockSnapshot open(File file) throws IOException {
+        if (!file.exists() || file.length() < HEADER_SIZE) {
+            throw new IOException(file + " is not a stock snapshot");
+        }
+        StockSnapshot snapshot = new StockSnapshot(file);
+        snapshot.map(snapshot.channel.size());
+        if (snapshot.buffer.getInt(MAGIC_OFFSET) != MAGIC || snapshot.buffer.getInt(VERSION_OFFSET) != VERSION) {
+            snapshot.close();
+            throw new IOException(file + " is not a stock snapshot");
+        }
+        return snapshot;
+    }
+
+    /**
+     * Creates a new, empty snapshot, replacing the file if it exists.
+     * @param file The snapshot file.
+     * @param capacity The number of records to make room for.
+     * @return The snapshot.
+     * @throws IOException If the file could not be created.
+     */
+    public static StockSnapshot create(File file, int capacity) throws IOException {
+        StockSnapshot snapshot = new StockSnapshot(file);
+        snapshot.initialize(Math.max(capacity, 16), 0);
+        return snapshot;
+    }
+
+    /**
+     * Lays out an empty file with room for the given number of records and names.
+     */
+    private void initialize(int capacity, int dictionarySize) throws IOException {
+        long dictionaryStart = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        channel.truncate(0);
+        map(dictionaryStart + dictionarySize);
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putLong(SEQUENCE_OFFSET, 0);
+        buffer.putInt(COUNT_OFFSET, 0);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putLong(DICTIONARY_END_OFFSET, dictionaryStart);
+    }
+
+    private void map(long size) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Returns the sequence number of the last journal record that is included in every record of this snapshot.
+     * @return The sequence number.
+     */
+    public long getJournalSequence() {
+        return buffer.getLong(SEQUENCE_OFFSET);
+    }
+
+    /**
+     * Sets the sequence number of the last journal record included in every record of this snapshot. This should
+     * only be called after the records have been forced to disk.
+     * @param sequence The sequence number.
+     */
+    public void setJournalSequence(long sequence) {
+        buffer.putLong(SEQUENCE_OFFSET, sequence);
+    }
+
+    /**
+     * Returns the number of Ingredients in this snapshot.
+     * @return The number of Ingredients.
+     */
+    public int size() {
+        return buffer.getInt(COUNT_OFFSET);
+    }
+
+    private int capacity() {
+        return buffer.getInt(CAPACITY_OFFSET);
+    }
+
+    private long dictionaryStart() {
+        return HEADER_SIZE + (long) capacity() * RECORD_SIZE;
+    }
+
+    private int recordOffset(int id) {
+        return HEADER_SIZE + id * RECORD_SIZE;
+    }
+
+    /**
+     * Returns the names of every Ingredient in this snapshot, indexed by id.
+     * @return The names.
+     */
+    public String[] readNames() {
+        String[] names = new String[size()];
+        int position = (int) dictionaryStart();
+        for (int id = 0; id < names.length; id++) {
+            int length = buffer.getShort(position);
+            byte[] bytes = new byte[length];
+            buffer.position(position + 2);
+            buffer.get(bytes);
+            names[id] = new String(bytes, StandardCharsets.UTF_8);
+            position += 2 + length;
+        }
+        return names;
+    }
+
+    public int getAmount(int id) {
+        return buffer.getInt(recordOffset(id) + AMOUNT);
+    }
+
+    public int getRestockThreshold(int id) {
+        return buffer.getInt(recordOffset(id) + THRESHOLD);
+    }
+
+    public int getRequestAmount(int id) {
+        return buffer.getInt(recordOffset(id) + REQUEST_AMOUNT);
+    }
+
+    public boolean isRequested(int id) {
+        return (buffer.getInt(recordOffset(id) + FLAGS) & REQUESTED) != 0;
+    }
+
+    /**
+     * Returns the sequence number of the journal record that the specified Ingredient's record was last written at.
+     * @param id The id of the Ingredient.
+     * @return The sequence number.
+     */
+    public long getSequence(int id) {
+        return buffer.getLong(recordOffset(id) + RECORD_SEQUENCE);
+    }
+
+    /**
+     * Writes the record for an Ingredient in place. If the id is one past the last Ingredient in the snapshot, the
+     * Ingredient's name is added to the dictionary.
+     * @param ingredient The Ingredient to write.
+     * @param requested Whether a restock of the Ingredient has been requested.
+     * @param sequence The sequence number of the last journal record included in the values being written.
+     * @throws IOException If the file had to grow and could not be.
+     */
+    public void write(Ingredient ingredient, boolean requested, long sequence) throws IOException {
+        int id = ingredient.getId();
+        if (id == size()) {
+            appendName(ingredient.getName());
+        }
+        int offset = recordOffset(id);
+        buffer.putInt(offset + AMOUNT, ingredient.getAmount());
+        buffer.putInt(offset + THRESHOLD, ingredient.getRestockThreshold());
+        buffer.putInt(offset + REQUEST_AMOUNT, ingredient.getRequestAmount());
+        buffer.putInt(offset + FLAGS, requested ? REQUESTED : 0);
+        buffer.putLong(offset + RECORD_SEQUENCE, sequence);
+    }
+
+    /**
+     * Adds a name to the end of the dictionary, growing the file if needed.
+     */
+    private void appendName(String name) throws IOException {
+        if (size() == capacity()) {
+            growRecords();
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        long end = buffer.getLong(DICTIONARY_END_OFFSET);
+        if (end + 2 + bytes.length > buffer.capacity()) {
+            // Grow by half again, so that adding many names only remaps the file a few times.
+            map(Math.max(end + 2 + bytes.length, buffer.capacity() + buffer.capacity() / 2));
+        }
+        buffer.putShort((int) end, (short) bytes.length);
+        buffer.position((int) end + 2);
+        buffer.put(bytes);
+        buffer.putLong(DICTIONARY_END_OFFSET, end + 2 + bytes.length);
+        buffer.putInt(COUNT_OFFSET, size() + 1);
+    }
+
+    /**
+     * Doubles the number of records the file has room for. The dictionary sits after the records, so this is the
+     * only operation that rewrites the file. The new file is written next to the old one and then moved over it, so
+     * a crash part way through leaves the old snapshot intact.
+     */
+    private void growRecords() throws IOException {
+        int count = size();
+        long dictionaryStart = dictionaryStart();
+        int dictionarySize = (int) (buffer.getLong(DICTIONARY_END_OFFSET) - dictionaryStart);
+
+        File temp = new File(file.getPath() + ".tmp");
+        StockSnapshot grown = new StockSnapshot(temp);
+        grown.initialize(capacity() * 2, dictionarySize);
+        for (int i = 0; i < count * RECORD_SIZE; i++) {
+            grown.buffer.put(HEADER_SIZE + i, buffer.get(HEADER_SIZE + i));
+        }
+        long grownDictionaryStart = grown.dictionaryStart();
+        for (int i = 0; i < dictionarySize; i++) {
+            grown.buffer.put((int) grownDictionaryStart + i, buffer.get((int) dictionaryStart + i));
+        }
+        grown.buffer.putLong(DICTIONARY_END_OFFSET, grownDictionaryStart + dictionarySize);
+        grown.buffer.putInt(COUNT_OFFSET, count);
+        grown.buffer.putLong(SEQUENCE_OFFSET, getJournalSequence());
+        grown.close();
+
+        channel.close();
+        raf.close();
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        map(channel.size());
+    }
+
+    /**
+     * Forces every change made to the snapshot out to disk.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    /**
+     * Forces every change out to disk and closes the file.
+     */
+    public void close() {
+        try {
+            force();
+            channel.close();
+            raf.close();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
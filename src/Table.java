@@ -0,0 +1,50 @@
+/**
+ * The Table class represents one table on the Restaurant's floor plan. Each table has a number, the section of the
+ * floor that it is in, and the number of seats at it.
+ */
+public class Table {
+    private int id;
+    private String section;
+    private int seats;
+
+    /**
+     * Creates a new Table.
+     * @param id The table number.
+     * @param section The name of the section the table is in.
+     * @param seats The number of seats at the table.
+     */
+    public Table(int id, String section, int seats) {
+        this.id = id;
+        this.section = section;
+        this.seats = seats;
+    }
+
+    /**
+     * Returns the table number.
+     * @return The table number.
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Returns the name of the section the table is in.
+     * @return The section.
+     */
+    public String getSection() {
+        return this.section;
+    }
+
+    /**
+     * Returns the number of seats at the table.
+     * @return The number of seats.
+     */
+    public int getSeats() {
+        return this.seats;
+    }
+
+    @Override
+    public String toString() {
+        return "Table " + this.id + " (" + this.section + ", " + this.seats + " seats)";
+    }
+}
@@ -18,28 +18,30 @@ public class TableController {
 
     // Total price of selected items.
     private int total=0;
-    // An instance of the Bill.
-    private static Bill bills[];
+    // The floor plan, which keeps the Bill of each table.
+    private static FloorPlan floorPlan;
+    // The start of the id of every table button, which ends with the table number.
+    final private static String TABLE_BUTTON_PREFIX = "tableButton";
     // Current tableNumber that was selected.
     private int tableNumber;
-    // Lists containing the MenuItems of that table, and the ones that are currently selected respectively.
-    private ArrayList<MenuItem> itemsList, currentItems;
+    // Lists containing the lines of that table, and the ones that are currently selected respectively. Each is in the
+    // same order as the ListView it is shown in.
+    private ArrayList<OrderLine> itemsList, currentItems;
 
     /**
-     * This function loads the bills from the Restaurant. It is just a reference to the same bills.
-     * @param bills Of the Restaurant.
+     * This function loads the floor plan from the Restaurant. It is just a reference to the same floor plan.
+     * @param floorPlan Of the Restaurant.
      */
-    public static void loadBills(Bill bills[]){
-        TableController.bills=bills;
+    public static void setFloorPlan(FloorPlan floorPlan){
+        TableController.floorPlan=floorPlan;
     }
 
     /**
-     * This function receives a String in a determined format and from that it gets and sets the tableNumber.
+     * This function receives the id of a table button, such as "tableButton12", and sets the tableNumber from it.
      * @param table String table.
      */
     private void setTable(String table){
-        if(table.charAt((table.length())-2)=='n') tableNumber = Integer.parseInt(table.charAt((table.length())-1) + "")-1;
-        else tableNumber = Integer.parseInt(table.charAt((table.length())-2) + "")*10 + Integer.parseInt(table.charAt((table.length())-1) + "")-1;
+        tableNumber = Integer.parseInt(table.substring(TABLE_BUTTON_PREFIX.length()));
     }
 
     /**
@@ -50,45 +52,22 @@ public class TableController {
         setTable(((Button) event.getSource()).getId());
         ordersList.getItems().clear();
         currentList.getItems().clear();
-        ordersList.getItems().addAll(bills[tableNumber].getItemsNames());
-        itemsList = bills[tableNumber].getItems();
+        Bill bill = floorPlan.getBill(tableNumber);
+        itemsList = bill == null ? new ArrayList<>() : bill.getItems();
         currentItems = new ArrayList<>();
-    }
-
-    /**
-     * From the predetermined String it gets the Cost of the item and returns it.
-     * @param item String with info about the MenuItem.
-     * @return Cost of that MenuItem.
-     */
-    private int calculateCost(String item){
-        String cost="";
-        for(int i=1; i<item.length(); i++){
-            if(item.charAt(i)==':' && item.charAt(i-1)=='t'){
-                i+=2;
-                while(item.charAt(i)!=' ') {
-                    cost += item.charAt(i++);
-                }
-            }
+        total = 0;
+        for(OrderLine line: itemsList){
+            ordersList.getItems().add(describe(line));
         }
-        return Integer.parseInt(cost);
     }
 
     /**
-     * From the predetermined String it gets the Name of the Item and returns it.
-     * @param item String with info about the MenuItem.
-     * @return Name of that MenuItem.
+     * Returns how a line is shown in the lists.
+     * @param line The line.
+     * @return String with the name and cost of the line.
      */
-    private String findName(String item){
-        String name="";
-        for(int i=1; i<item.length(); i++){
-            if(item.charAt(i)==':' && item.charAt(i-1)=='m'){
-                i+=2;
-                while(item.charAt(i)!='.'){
-                    name+=item.charAt(i++);
-                }
-            }
-        }
-        return name;
+    private static String describe(OrderLine line){
+        return "Item: " + line.getName() + ". Cost: " + line.getCost() + " CAD";
     }
 
     /**
@@ -96,57 +75,43 @@ public class TableController {
      * such as the new cost and updates the lists of items.
      */
     public void addToList(){
-        if(ordersList.getSelectionModel().getSelectedItem()==null)return;
-        String item = ordersList.getSelectionModel().getSelectedItem();
-        ordersList.getItems().remove(ordersList.getSelectionModel().getSelectedItem());
-        currentList.getItems().addAll(item);
-        total+=calculateCost(item);
-        for(MenuItem i: itemsList){
-            if(i.getName().equals(findName(item))){
-                currentItems.add(i);
-                itemsList.remove(i);
-                return;
-            }
-        }
+        int index = ordersList.getSelectionModel().getSelectedIndex();
+        if(index < 0)return;
+        OrderLine line = itemsList.remove(index);
+        ordersList.getItems().remove(index);
+        currentItems.add(line);
+        currentList.getItems().add(describe(line));
+        total+=line.getCost();
     }
     /**
      * When I click to unselect a MenuItem, it shifts the Item to the left bar and changes all the needed information
      * such as the new cost and updates the lists of items.
      */
     public void unselectItem(){
-        if(currentList.getSelectionModel().getSelectedItem()==null)return;
-        String item = currentList.getSelectionModel().getSelectedItem();
-        currentList.getItems().remove(currentList.getSelectionModel().getSelectedItem());
-        ordersList.getItems().addAll(item);
-        total-=calculateCost(item);
-        for(MenuItem i: currentItems){
-            if(i.getName().equals(findName(item))){
-                currentItems.remove(i);
-                itemsList.add(i);
-                return;
-            }
-        }
+        int index = currentList.getSelectionModel().getSelectedIndex();
+        if(index < 0)return;
+        OrderLine line = currentItems.remove(index);
+        currentList.getItems().remove(index);
+        itemsList.add(line);
+        ordersList.getItems().add(describe(line));
+        total-=line.getCost();
     }
 
     /**
      * Cancel an Item. It will remove the item from that order and from the screen.
      */
     public void cancelItem(){
-        if(ordersList.getSelectionModel().getSelectedItem()==null)return;
+        int index = ordersList.getSelectionModel().getSelectedIndex();
+        if(index < 0)return;
 
         TextInputDialog dialog = new TextInputDialog();
         dialog.setHeaderText("Why is this order being returned?");
         Optional<String> input = dialog.showAndWait();
 
-        String item = ordersList.getSelectionModel().getSelectedItem();
-        ordersList.getItems().remove(ordersList.getSelectionModel().getSelectedItem());
-        for(MenuItem i: itemsList){
-            if(i.getName().equals(findName(item))){
-                i.setPayed(true);
-                itemsList.remove(i);
-                return;
-            }
-        }
+        OrderLine line = itemsList.remove(index);
+        ordersList.getItems().remove(index);
+        floorPlan.voidLine(tableNumber, line.getId());
+        floorPlan.closeTable(tableNumber);
     }
 
     /**
@@ -154,9 +119,12 @@ public class TableController {
      */
     public void pay(){
         currentList.getItems().clear();
-        for(MenuItem i: currentItems){
-            i.setPayed(true);
+        for(OrderLine i: currentItems){
+            floorPlan.pay(tableNumber, i.getId());
         }
+        currentItems.clear();
+        // Once everything is paid, the table is free for the next guests.
+        floorPlan.closeTable(tableNumber);
         Alert alert = new Alert(Alert.AlertType.INFORMATION, "Payed bill!" + '\n' + "Total: " + total + ".00 CAD");
         alert.show();
         total=0;
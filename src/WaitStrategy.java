@@ -0,0 +1,161 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a thread waits for something to happen on an EventBus, such as a consumer waiting for the next Event to be
+ * published or a producer waiting for room in the ring. The strategies trade CPU use for how quickly a waiting thread
+ * notices: Blocking uses no CPU while waiting, and BusySpin keeps a core busy but notices almost immediately.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Waits until the condition is true.
+     * @param condition The condition to wait for.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    void waitFor(BooleanSupplier condition) throws InterruptedException;
+
+    /**
+     * Wakes up any threads that are waiting, because something they may be waiting for has happened.
+     */
+    void signalAll();
+
+    /**
+     * Returns the WaitStrategy with the specified name: "blocking", "sleeping", "yielding" or "busyspin".
+     * @param name The name of the strategy.
+     * @return The WaitStrategy.
+     * @throws IllegalArgumentException If there is no strategy with that name.
+     */
+    static WaitStrategy named(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "blocking":
+                return new Blocking();
+            case "sleeping":
+                return new Sleeping();
+            case "yielding":
+                return new Yielding();
+            case "busyspin":
+                return new BusySpin();
+            default:
+                throw new IllegalArgumentException("unknown wait strategy \"" + name + "\"");
+        }
+    }
+
+    /**
+     * Waits on a lock and condition. Uses no CPU while waiting, at the cost of waking up more slowly and making
+     * publishers signal the condition. The best choice when there are fewer cores than busy threads.
+     */
+    class Blocking implements WaitStrategy {
+        // How long to wait before checking again, in case a signal was missed.
+        final private static long RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+
+        @Override
+        public void waitFor(BooleanSupplier condition) throws InterruptedException {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            lock.lock();
+            try {
+                while (!condition.getAsBoolean()) {
+                    changed.awaitNanos(RECHECK_NANOS);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            lock.lock();
+            try {
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Spins for a while, then yields, then sleeps for short periods. Uses little CPU when idle while still waking up
+     * quickly during bursts.
+     */
+    class Sleeping implements WaitStrategy {
+        final private static int SPINS = 100;
+        final private static int YIELDS = 100;
+        final private static long SLEEP_NANOS = 100_000;
+
+        @Override
+        public void waitFor(BooleanSupplier condition) throws InterruptedException {
+            int tries = 0;
+            while (!condition.getAsBoolean()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (tries < SPINS) {
+                    tries++;
+                } else if (tries < SPINS + YIELDS) {
+                    tries++;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(SLEEP_NANOS);
+                }
+            }
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+
+    /**
+     * Spins for a while, then yields the CPU between checks. Wakes up quickly, but keeps a core busy while there are
+     * other threads to run.
+     */
+    class Yielding implements WaitStrategy {
+        final private static int SPINS = 100;
+
+        @Override
+        public void waitFor(BooleanSupplier condition) throws InterruptedException {
+            int tries = 0;
+            while (!condition.getAsBoolean()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (tries < SPINS) {
+                    tries++;
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+
+    /**
+     * Checks over and over without ever giving up the CPU. Wakes up fastest, but keeps a whole core busy for each
+     * waiting thread, so it should only be used when there is a core to spare for each of them.
+     */
+    class BusySpin implements WaitStrategy {
+        @Override
+        public void waitFor(BooleanSupplier condition) throws InterruptedException {
+            while (!condition.getAsBoolean()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+}